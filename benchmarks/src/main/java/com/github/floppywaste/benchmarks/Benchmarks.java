@@ -0,0 +1,27 @@
+package com.github.floppywaste.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Runs the benchmarks with the usual JMH command line and always attaches the GC profiler, so every result comes
+ * with its allocation rate ({@code gc.alloc.rate.norm} is bytes per operation). {@code Mode.SampleTime} adds the
+ * latency percentiles.
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar CompositionsBenchmark -p lines=10000000 -p devices=100
+ * </pre>
+ */
+public final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder().parent(commandLine).addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.floppywaste.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.floppywaste.base.CompiledCharMatcher;
+import com.google.common.base.CharMatcher;
+
+
+/**
+ * The composed matcher of {@code Guava02_Strings.CharMatcher_buildAndCompose} cleaning a log buffer, as a
+ * {@code CharMatcher} and compiled into a table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CharMatcherBenchmark {
+
+    @Param({ "65536" })
+    public int bufferSize;
+
+    CharMatcher matcher = CharMatcher.DIGIT.or(CharMatcher.WHITESPACE);
+    CharMatcher precomputed = matcher.precomputed();
+    CompiledCharMatcher compiled = CompiledCharMatcher.compile(matcher);
+
+    String text;
+    char[] source;
+    char[] work;
+
+    @Setup
+    public void generateText() {
+        Random random = new Random(42);
+        source = new char[bufferSize];
+        String alphabet = "abcdefghij 0123456789,:\n";
+        for (int i = 0; i < bufferSize; i++) {
+            source[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+        }
+        text = new String(source);
+        work = new char[bufferSize];
+    }
+
+    @Setup(Level.Invocation)
+    public void restoreBuffer() {
+        System.arraycopy(source, 0, work, 0, bufferSize);
+    }
+
+    @Benchmark
+    public int charMatcher_countIn() {
+        return matcher.countIn(text);
+    }
+
+    @Benchmark
+    public int compiled_countIn() {
+        return compiled.countIn(work, 0, bufferSize);
+    }
+
+    @Benchmark
+    public String charMatcher_retainFrom() {
+        return matcher.retainFrom(text);
+    }
+
+    @Benchmark
+    public String precomputed_retainFrom() {
+        return precomputed.retainFrom(text);
+    }
+
+    @Benchmark
+    public int compiled_retainFrom() {
+        return compiled.retainFrom(work, 0, bufferSize);
+    }
+}
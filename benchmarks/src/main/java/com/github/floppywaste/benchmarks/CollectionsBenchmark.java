@@ -0,0 +1,69 @@
+package com.github.floppywaste.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Multisets;
+
+
+/**
+ * Event counting with {@code HashMultiset} as in {@code Guava04_Collections.Multiset_greatForCountingArbitraryEvents}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectionsBenchmark {
+
+    @Param({ "10000" })
+    public int events;
+
+    @Param({ "2", "1000" })
+    public int distinctEvents;
+
+    String[] eventStream;
+
+    @Setup
+    public void generateEvents() {
+        Random random = new Random(42);
+        eventStream = new String[events];
+        for (int i = 0; i < events; i++) {
+            eventStream[i] = "event-" + random.nextInt(distinctEvents);
+        }
+    }
+
+    @Benchmark
+    public Multiset<String> hashMultiset_count() {
+        Multiset<String> reporter = HashMultiset.create();
+        for (String event : eventStream) {
+            reporter.add(event);
+        }
+        return reporter;
+    }
+
+    @Benchmark
+    public int hashMultiset_sumOfTwoReporters() {
+        Multiset<String> reporter1 = HashMultiset.create();
+        Multiset<String> reporter2 = HashMultiset.create();
+        for (int i = 0; i < eventStream.length; i++) {
+            (i % 2 == 0 ? reporter1 : reporter2).add(eventStream[i]);
+        }
+        return Multisets.sum(reporter1, reporter2).count(eventStream[0]);
+    }
+}
@@ -0,0 +1,163 @@
+package com.github.floppywaste.benchmarks;
+
+import static com.google.common.base.Charsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.floppywaste.metrics.InMemoryMetricsRegistry;
+import com.github.floppywaste.metrics.Instrumented;
+import com.github.floppywaste.metrics.MetricsRegistry;
+import com.github.floppywaste.sensor.ColumnarSensorFile;
+import com.github.floppywaste.sensor.MappedByteSource;
+import com.github.floppywaste.sensor.MappedSensorReader;
+import com.github.floppywaste.sensor.ParallelSensorReader;
+import com.github.floppywaste.sensor.SensorAggregator;
+import com.google.common.base.Function;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
+import com.google.common.io.CharSource;
+import com.google.common.io.Files;
+import com.google.common.math.DoubleMath;
+
+
+/**
+ * The CSV aggregation of {@code Guava06_Compositions.example_processingCsvFile} against the engines of the sensor
+ * package. Every benchmark reads the whole file and looks up the average of every device once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompositionsBenchmark {
+
+    @Benchmark
+    public void viewPipeline(final SensorFile input, final Blackhole blackhole) throws IOException {
+        // same steps as the tutorial, the test class is not part of the published artifact
+        ImmutableList<String> lines = Files.asCharSource(input.file, UTF_8).readLines();
+        List<List<String>> csvTable = Lists.transform(lines, splitter(Splitter.on(',')));
+        Multimap<String, List<String>> groupedByDevice = Multimaps.index(csvTable, row -> row.get(0));
+        Multimap<String, Integer> valuesPerDevice =
+                Multimaps.transformValues(groupedByDevice, row -> Integer.valueOf(row.get(2)));
+        Map<String, Double> averageValuePerDevice = Maps.transformValues(valuesPerDevice.asMap(), mean());
+
+        consumeAll(averageValuePerDevice, blackhole);
+    }
+
+    @Benchmark
+    public void streamingAggregator(final SensorFile input, final Blackhole blackhole) throws IOException {
+        consumeAll(SensorAggregator.averages(Files.asCharSource(input.file, UTF_8)), blackhole);
+    }
+
+    /**
+     * The streaming aggregator with its read and aggregate stages instrumented, to compare against the plain one.
+     */
+    @Benchmark
+    public void instrumentedStreamingAggregator(final SensorFile input, final Blackhole blackhole)
+            throws IOException {
+        MetricsRegistry metrics = InMemoryMetricsRegistry.create();
+        CharSource source = Instrumented.charSource(Files.asCharSource(input.file, UTF_8), metrics.stage("read"));
+        consumeAll(source.readLines(Instrumented.lineProcessor(new SensorAggregator(), metrics.stage("aggregate"))),
+                blackhole);
+        blackhole.consume(metrics);
+    }
+
+    @Benchmark
+    public void mappedReader(final SensorFile input, final Blackhole blackhole) throws IOException {
+        consumeAll(MappedSensorReader.averages(MappedByteSource.of(input.file)), blackhole);
+    }
+
+    @Benchmark
+    public void parallelReader(final SensorFile input, final Blackhole blackhole) throws IOException {
+        consumeAll(ParallelSensorReader.averages(MappedByteSource.of(input.file)), blackhole);
+    }
+
+    @Benchmark
+    public void columnarBlockStatistics(final Columnar input, final Blackhole blackhole) throws IOException {
+        consumeAll(ColumnarSensorFile.open(MappedByteSource.of(input.file)).averages(), blackhole);
+    }
+
+    @Benchmark
+    public void columnarScan(final Columnar input, final Blackhole blackhole) throws IOException {
+        final long[] sums = new long[2];
+        ColumnarSensorFile.open(MappedByteSource.of(input.file)).scan(new ColumnarSensorFile.RowHandler() {
+
+            @Override
+            public void row(final int device, final long timestamp, final int value) {
+                sums[0] += device;
+                sums[1] += value;
+            }
+        });
+        blackhole.consume(sums);
+    }
+
+    /**
+     * The sensor file converted to the columnar format once per trial; the conversion itself is not measured.
+     */
+    @State(Scope.Benchmark)
+    public static class Columnar {
+
+        public File file;
+
+        @Setup(Level.Trial)
+        public void convert(final SensorFile input) throws IOException {
+            file = File.createTempFile("sensors", ".col");
+            ColumnarSensorFile.convert(Files.asCharSource(input.file, UTF_8), Files.asByteSink(file));
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() {
+            file.delete();
+        }
+    }
+
+    static void consumeAll(final Map<String, Double> averages, final Blackhole blackhole) {
+        for (String device : averages.keySet()) {
+            blackhole.consume(averages.get(device));
+        }
+    }
+
+    private static Function<String, List<String>> splitter(final Splitter splitter) {
+        return new Function<String, List<String>>() {
+
+            @Override
+            public List<String> apply(final String input) {
+                return splitter.splitToList(input);
+            }
+        };
+    }
+
+    private static Function<Collection<? extends Number>, Double> mean() {
+        return new Function<Collection<? extends Number>, Double>() {
+
+            @Override
+            public Double apply(final Collection<? extends Number> input) {
+                return DoubleMath.mean(input);
+            }
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.floppywaste.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.floppywaste.collect.EventCounter;
+import com.google.common.collect.ConcurrentHashMultiset;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+
+
+/**
+ * Many reporter threads hitting the same counters: {@link EventCounter} against {@link ConcurrentHashMultiset} and a
+ * {@link HashMultiset} behind a lock. Vary the contention with {@code -t} and {@code -p distinctEvents}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class ConcurrentCountingBenchmark {
+
+    @Param({ "2", "1000" })
+    public int distinctEvents;
+
+    String[] events;
+
+    EventCounter<String> eventCounter = EventCounter.create();
+    Multiset<String> concurrentHashMultiset = ConcurrentHashMultiset.create();
+    Multiset<String> lockedHashMultiset = HashMultiset.create();
+
+    @Setup
+    public void createEvents() {
+        events = new String[distinctEvents];
+        for (int i = 0; i < distinctEvents; i++) {
+            events[i] = "event-" + i;
+        }
+    }
+
+    String nextEvent() {
+        return events[ThreadLocalRandom.current().nextInt(events.length)];
+    }
+
+    @Benchmark
+    public void eventCounter() {
+        eventCounter.add(nextEvent());
+    }
+
+    @Benchmark
+    public void concurrentHashMultiset() {
+        concurrentHashMultiset.add(nextEvent());
+    }
+
+    @Benchmark
+    public void lockedHashMultiset() {
+        String event = nextEvent();
+        synchronized (lockedHashMultiset) {
+            lockedHashMultiset.add(event);
+        }
+    }
+
+    @Benchmark
+    public Multiset<String> eventCounter_snapshot() {
+        eventCounter.add(nextEvent());
+        return eventCounter.snapshot();
+    }
+}
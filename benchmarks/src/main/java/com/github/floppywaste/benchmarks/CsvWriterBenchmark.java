@@ -0,0 +1,88 @@
+package com.github.floppywaste.benchmarks;
+
+import static com.google.common.base.Charsets.UTF_8;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.floppywaste.io.CsvFormat;
+import com.github.floppywaste.io.CsvWriter;
+import com.google.common.base.Joiner;
+import com.google.common.io.ByteSink;
+import com.google.common.io.ByteStreams;
+
+
+/**
+ * Exporting aggregated rows (device, count, mean) as CSV: a {@code Joiner} string per row, encoded and written to a
+ * buffered stream, against {@link CsvWriter}. Both write to a stream that discards the bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvWriterBenchmark {
+
+    @Param({ "100000" })
+    public int rows;
+
+    String[] devices;
+    long[] counts;
+    double[] means;
+
+    ByteSink discard = new ByteSink() {
+
+        @Override
+        public OutputStream openStream() {
+            return ByteStreams.nullOutputStream();
+        }
+    };
+
+    @Setup(Level.Trial)
+    public void generate() {
+        Random random = new Random(42);
+        devices = new String[rows];
+        counts = new long[rows];
+        means = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            devices[i] = "Sensor " + random.nextInt(10000);
+            counts[i] = 1 + random.nextInt(100000);
+            means[i] = (double) random.nextInt(100000000) / counts[i];
+        }
+    }
+
+    @Benchmark
+    public void joiner() throws IOException {
+        Joiner joiner = Joiner.on(',');
+        OutputStream out = discard.openBufferedStream();
+        for (int i = 0; i < rows; i++) {
+            out.write((joiner.join(devices[i], counts[i], means[i]) + "\n").getBytes(UTF_8));
+        }
+        out.close();
+    }
+
+    @Benchmark
+    public void csvWriter() throws IOException {
+        CsvWriter out = CsvFormat.on(',').newWriter(discard);
+        for (int i = 0; i < rows; i++) {
+            out.field(devices[i]).field(counts[i]).field(means[i]).endRow();
+        }
+        out.close();
+    }
+}
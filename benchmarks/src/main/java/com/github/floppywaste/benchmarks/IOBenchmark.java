@@ -0,0 +1,83 @@
+package com.github.floppywaste.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.floppywaste.io.Copies;
+import com.github.floppywaste.io.TreeHashing;
+import com.github.floppywaste.sensor.MappedByteSource;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
+
+
+/**
+ * {@code ByteSource.hash} and {@code ByteSource.copyTo} of {@code Guava05_IO} on a generated sensor file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IOBenchmark {
+
+    File outputFile;
+
+    @Setup(Level.Trial)
+    public void createOutputFile() throws IOException {
+        outputFile = File.createTempFile("out", ".csv");
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteOutputFile() {
+        outputFile.delete();
+    }
+
+    @Benchmark
+    public HashCode hash_md5(final SensorFile input) throws IOException {
+        return Files.asByteSource(input.file).hash(Hashing.md5());
+    }
+
+    @Benchmark
+    public HashCode treeHash_md5(final SensorFile input) throws IOException {
+        return TreeHashing.hash(MappedByteSource.of(input.file), Hashing.md5()).root();
+    }
+
+    @Benchmark
+    public long copyTo_byteSink(final SensorFile input) throws IOException {
+        return Files.asByteSource(input.file).copyTo(Files.asByteSink(outputFile));
+    }
+
+    @Benchmark
+    public boolean copyTo_byteSink_verified(final SensorFile input) throws IOException {
+        ByteSource byteSource = Files.asByteSource(input.file);
+        byteSource.copyTo(Files.asByteSink(outputFile));
+        return byteSource.hash(Hashing.md5()).equals(Files.hash(outputFile, Hashing.md5()));
+    }
+
+    @Benchmark
+    public long copies_transferTo(final SensorFile input) throws IOException {
+        return Copies.copy(input.file, outputFile);
+    }
+
+    @Benchmark
+    public HashCode copies_copyAndHash(final SensorFile input) throws IOException {
+        return Copies.copyAndHash(input.file, outputFile, Hashing.md5());
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.floppywaste.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.floppywaste.sensor.DeviceStatistics;
+import com.github.floppywaste.sensor.MappedByteSource;
+import com.github.floppywaste.sensor.ParallelSensorReader;
+
+
+/**
+ * Scaling of {@link ParallelSensorReader} from one thread to many ({@code -p threads=1,2,4,8,16,32}), with chunks small
+ * enough to keep every thread busy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelScalingBenchmark {
+
+    @Param({ "1", "2", "4", "8" })
+    public int threads;
+
+    @Param({ "1048576" })
+    public int chunkSize;
+
+    ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void startPool() {
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopPool() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public void parallelReader(final SensorFile input, final Blackhole blackhole) throws IOException {
+        for (DeviceStatistics statistics : ParallelSensorReader
+                .statistics(MappedByteSource.of(input.file), pool, chunkSize).values()) {
+            blackhole.consume(statistics.mean());
+        }
+    }
+}
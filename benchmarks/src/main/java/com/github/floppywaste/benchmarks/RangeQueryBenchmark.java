@@ -0,0 +1,82 @@
+package com.github.floppywaste.benchmarks;
+
+import static com.google.common.base.Charsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.ZoneOffset;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.floppywaste.sensor.ColumnarSensorFile;
+import com.github.floppywaste.sensor.DeviceStatistics;
+import com.github.floppywaste.sensor.MappedByteSource;
+import com.github.floppywaste.sensor.TimeRangeIndex;
+import com.google.common.io.Files;
+
+
+/**
+ * "Device X in a 30 minute window" queries, as an alerting job runs them, against a {@link TimeRangeIndex} and
+ * against the block statistics of a {@link ColumnarSensorFile}. Both are built once per trial; every invocation
+ * queries a random device and window.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RangeQueryBenchmark {
+
+    private static final long WINDOW = TimeUnit.MINUTES.toMillis(30);
+
+    TimeRangeIndex index;
+    File columnarFile;
+    ColumnarSensorFile columnar;
+    long start;
+    long end;
+    int devices;
+
+    @Setup(Level.Trial)
+    public void build(final SensorFile input) throws IOException {
+        index = Files.asCharSource(input.file, UTF_8).readLines(TimeRangeIndex.create().appender());
+        columnarFile = File.createTempFile("sensors", ".col");
+        ColumnarSensorFile.convert(Files.asCharSource(input.file, UTF_8), Files.asByteSink(columnarFile));
+        columnar = ColumnarSensorFile.open(MappedByteSource.of(columnarFile));
+        start = SensorFile.START.toInstant(ZoneOffset.UTC).toEpochMilli();
+        end = start + TimeUnit.MINUTES.toMillis(input.lines / input.devices * 15L) + WINDOW;
+        devices = input.devices;
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() {
+        columnarFile.delete();
+    }
+
+    @Benchmark
+    public DeviceStatistics timeRangeIndex() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long from = start + random.nextLong(end - start);
+        return index.statistics("Sensor " + random.nextInt(devices), from, from + WINDOW);
+    }
+
+    @Benchmark
+    public DeviceStatistics columnarBlockStatistics() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long from = start + random.nextLong(end - start);
+        return columnar.statistics(from, from + WINDOW).get("Sensor " + random.nextInt(devices));
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.floppywaste.benchmarks;
+
+import static com.google.common.base.Charsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.google.common.io.Closer;
+import com.google.common.io.Files;
+
+
+/**
+ * A synthetic {@code device,timestamp,value} file in the format of {@code test.csv}, with the number of lines and
+ * distinct devices as benchmark parameters ({@code -p lines=10000000 -p devices=5000}).
+ */
+@State(Scope.Benchmark)
+public class SensorFile {
+
+    static final LocalDateTime START = LocalDateTime.of(2015, 2, 13, 12, 0);
+    static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    @Param({ "100000", "1000000" })
+    public int lines;
+
+    @Param({ "10", "10000" })
+    public int devices;
+
+    public File file;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        file = File.createTempFile("sensors", ".csv");
+        write(file, lines, devices, 42);
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() {
+        file.delete();
+    }
+
+    /**
+     * Writes {@code lines} readings of randomly picked sensors out of {@code devices}. The timestamp advances by 15
+     * minutes after every {@code devices} lines, so there is one reading per device every 15 minutes on average.
+     */
+    public static void write(final File file, final int lines, final int devices, final long seed)
+            throws IOException {
+        Random random = new Random(seed);
+        Closer closer = Closer.create();
+        try {
+            Writer out = closer.register(Files.asCharSink(file, UTF_8).openBufferedStream());
+            for (int i = 0; i < lines; i++) {
+                LocalDateTime timestamp = START.plusMinutes(i / devices * 15L);
+                out.write("Sensor " + random.nextInt(devices) + "," + TIMESTAMP.format(timestamp) + ","
+                        + random.nextInt(1000) + "\n");
+            }
+        } catch (Throwable e) {
+            throw closer.rethrow(e);
+        } finally {
+            closer.close();
+        }
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("usage: SensorFile <file> <lines> <devices>");
+            System.exit(1);
+        }
+        write(new File(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]), 42);
+    }
+}
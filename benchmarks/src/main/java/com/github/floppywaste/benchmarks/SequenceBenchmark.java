@@ -0,0 +1,75 @@
+package com.github.floppywaste.benchmarks;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.floppywaste.collect.IntSequence;
+import com.google.common.collect.AbstractSequentialIterator;
+import com.google.common.collect.Iterators;
+
+
+/**
+ * Summing the first natural numbers: boxed from {@code AbstractSequentialIterator} and {@code Iterators.limit} as in
+ * {@code Guava04_Collections.AbstractSequentialIterator_infiniteSequences}, against an {@link IntSequence} stream,
+ * sequential and parallel, and its batches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SequenceBenchmark {
+
+    @Param({ "10000000" })
+    public int elements;
+
+    IntSequence naturals = IntSequence.arithmetic(1, 1);
+
+    @Benchmark
+    public long abstractSequentialIterator() {
+        Iterator<Integer> allNaturalNumbers = new AbstractSequentialIterator<Integer>(1) {
+            @Override
+            protected Integer computeNext(final Integer previous) {
+                return previous + 1;
+            }
+        };
+        long sum = 0;
+        for (Iterator<Integer> first = Iterators.limit(allNaturalNumbers, elements); first.hasNext();) {
+            sum += first.next();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long intSequence() {
+        return naturals.stream(0, elements).asLongStream().sum();
+    }
+
+    @Benchmark
+    public long intSequence_parallel() {
+        return naturals.stream(0, elements).parallel().asLongStream().sum();
+    }
+
+    @Benchmark
+    public long intSequence_batches() {
+        long sum = 0;
+        for (int[] batch : naturals.partition(0, elements, 4096)) {
+            for (int value : batch) {
+                sum += value;
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.floppywaste.benchmarks;
+
+import static com.google.common.base.CharMatcher.WHITESPACE;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.floppywaste.base.FieldCursor;
+import com.github.floppywaste.base.KeyValueRecord;
+import com.github.floppywaste.base.KeyValueTokenizer;
+import com.github.floppywaste.base.OffsetSplitter;
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Splitter;
+import com.google.common.base.Splitter.MapSplitter;
+
+
+/**
+ * The parsing idioms of {@code Guava02_Strings} on single records.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringsBenchmark {
+
+    String csvLine = "Sensor A,2015-02-13 12:00,144";
+    String paddedCsvLine = "a, b, ,d, e,  f ,g";
+    String jsonString = "{a:1, b:2, d:4, e:5, f:6, g:7}";
+
+    Splitter commaSplitter = Splitter.on(',');
+    Splitter trimmingSplitter = Splitter.on(',').omitEmptyStrings().trimResults();
+    MapSplitter keyValueSplitter = Splitter.on(',').trimResults(CharMatcher.anyOf("{}").or(WHITESPACE))
+            .withKeyValueSeparator(Splitter.on(':').trimResults());
+
+    KeyValueRecord keyValueRecord = KeyValueTokenizer.on(',', ':')
+            .trimEntries(CharMatcher.anyOf("{}").or(WHITESPACE)).trimKeysAndValues(WHITESPACE).record();
+
+    FieldCursor commaFields = OffsetSplitter.on(',').cursor();
+    FieldCursor trimmingFields = OffsetSplitter.on(',').omitEmptyStrings().trimResults().cursor();
+
+    @Benchmark
+    public List<String> splitToList() {
+        return commaSplitter.splitToList(csvLine);
+    }
+
+    @Benchmark
+    public List<String> splitToList_omitEmptyTrim() {
+        return trimmingSplitter.splitToList(paddedCsvLine);
+    }
+
+    @Benchmark
+    public int splitToList_parseValue() {
+        return Integer.parseInt(commaSplitter.splitToList(csvLine).get(2));
+    }
+
+    @Benchmark
+    public int offsetSplitter_parseValue() {
+        return commaFields.reset(csvLine).parseInt(2);
+    }
+
+    @Benchmark
+    public int offsetSplitter_omitEmptyTrim() {
+        return trimmingFields.reset(paddedCsvLine).fieldCount();
+    }
+
+    @Benchmark
+    public Map<String, String> mapSplitter() {
+        return keyValueSplitter.split(jsonString);
+    }
+
+    @Benchmark
+    public long mapSplitter_sumValues() {
+        long sum = 0;
+        for (String value : keyValueSplitter.split(jsonString).values()) {
+            sum += Long.parseLong(value);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long keyValueTokenizer_sumValues() {
+        keyValueRecord.reset(jsonString);
+        long sum = 0;
+        for (int entry = 0; entry < keyValueRecord.size(); entry++) {
+            sum += keyValueRecord.valueAsLong(entry);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int keyValueTokenizer_lookup() {
+        return keyValueRecord.reset(jsonString).getInt("d", -1);
+    }
+}
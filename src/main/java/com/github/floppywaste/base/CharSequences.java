@@ -0,0 +1,80 @@
+package com.github.floppywaste.base;
+
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+
+/**
+ * Works on ranges {@code [start, end)} of a {@link CharSequence} where the JDK would want a substring first.
+ */
+public final class CharSequences {
+
+    private CharSequences() {
+    }
+
+    /**
+     * Same contract as {@link Integer#parseInt(String)} for the given range.
+     */
+    public static int parseInt(final CharSequence chars, final int start, final int end) {
+        return (int) parse(chars, start, end, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Same contract as {@link Long#parseLong(String)} for the given range.
+     */
+    public static long parseLong(final CharSequence chars, final int start, final int end) {
+        return parse(chars, start, end, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    public static boolean regionEquals(final CharSequence chars, final int start, final int end,
+            final CharSequence expected) {
+        checkPositionIndexes(start, end, chars.length());
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (chars.charAt(i) != expected.charAt(i - start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Accumulates negatively like Long.parseLong, so that the minimum value does not overflow.
+     */
+    private static long parse(final CharSequence chars, final int start, final int end, final long min,
+            final long max) {
+        checkPositionIndexes(start, end, chars.length());
+        int position = start;
+        boolean negative = false;
+        if (position < end) {
+            char first = chars.charAt(position);
+            if (first == '-' || first == '+') {
+                negative = first == '-';
+                position++;
+            }
+        }
+        if (position == end) {
+            throw numberFormat(chars, start, end);
+        }
+        long limit = negative ? min : -max;
+        long limitBeforeMultiplication = limit / 10;
+        long result = 0;
+        for (; position < end; position++) {
+            int digit = chars.charAt(position) - '0';
+            if (digit < 0 || digit > 9 || result < limitBeforeMultiplication) {
+                throw numberFormat(chars, start, end);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw numberFormat(chars, start, end);
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    private static NumberFormatException numberFormat(final CharSequence chars, final int start, final int end) {
+        return new NumberFormatException("For input string: \"" + chars.subSequence(start, end) + "\"");
+    }
+}
@@ -0,0 +1,264 @@
+package com.github.floppywaste.base;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+import com.google.common.base.CharMatcher;
+
+
+/**
+ * A {@link CharMatcher} compiled once into a 64K bit table, with bulk operations that work in place on
+ * {@code char[]}, {@link CharBuffer}, and ASCII {@code byte[]} and {@link ByteBuffer} ranges. However deeply the
+ * original matcher was composed ({@code DIGIT.or(WHITESPACE)}, {@code forPredicate(...)}), a match costs one table
+ * lookup, and nothing allocates: {@code retainFrom} and {@code removeFrom} compact the range and return its new end.
+ *
+ * <p>Bytes are looked up as the chars {@code 0..255}, which is exact for ASCII and ISO-8859-1 data. In UTF-8 data every
+ * byte of a multi-byte sequence is {@code >= 0x80}, so matchers that accept only ASCII chars leave those sequences
+ * alone in {@code countIn} and remove them completely in {@code retainFrom}.
+ */
+public final class CompiledCharMatcher {
+
+    private final long[] table = new long[(Character.MAX_VALUE + 1) / 64];
+    private final String description;
+
+    private CompiledCharMatcher(final CharMatcher matcher) {
+        for (int c = Character.MIN_VALUE; c <= Character.MAX_VALUE; c++) {
+            if (matcher.matches((char) c)) {
+                table[c >>> 6] |= 1L << c;
+            }
+        }
+        description = matcher.toString();
+    }
+
+    public static CompiledCharMatcher compile(final CharMatcher matcher) {
+        return new CompiledCharMatcher(checkNotNull(matcher));
+    }
+
+    public boolean matches(final char c) {
+        return (table[c >>> 6] & (1L << c)) != 0;
+    }
+
+    private boolean matches(final byte b) {
+        return matches((char) (b & 0xFF));
+    }
+
+    // char[]
+
+    public int countIn(final char[] chars, final int from, final int to) {
+        checkPositionIndexes(from, to, chars.length);
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (matches(chars[i])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int indexIn(final char[] chars, final int from, final int to) {
+        checkPositionIndexes(from, to, chars.length);
+        for (int i = from; i < to; i++) {
+            if (matches(chars[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Moves the matching chars of {@code [from, to)} to the front of the range, keeping their order.
+     *
+     * @return the new end of the range
+     */
+    public int retainFrom(final char[] chars, final int from, final int to) {
+        return compact(chars, from, to, true);
+    }
+
+    /**
+     * Moves the chars of {@code [from, to)} that do not match to the front of the range, keeping their order.
+     *
+     * @return the new end of the range
+     */
+    public int removeFrom(final char[] chars, final int from, final int to) {
+        return compact(chars, from, to, false);
+    }
+
+    /**
+     * @return the number of replaced chars
+     */
+    public int replaceFrom(final char[] chars, final int from, final int to, final char replacement) {
+        checkPositionIndexes(from, to, chars.length);
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (matches(chars[i])) {
+                chars[i] = replacement;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int compact(final char[] chars, final int from, final int to, final boolean keepMatches) {
+        checkPositionIndexes(from, to, chars.length);
+        int end = from;
+        for (int i = from; i < to; i++) {
+            char c = chars[i];
+            if (matches(c) == keepMatches) {
+                chars[end++] = c;
+            }
+        }
+        return end;
+    }
+
+    // CharBuffer, between position and limit; read-only buffers are counted through get(int), the methods that
+    // modify a buffer throw ReadOnlyBufferException for them
+
+    public int countIn(final CharBuffer buffer) {
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset();
+            return countIn(buffer.array(), offset + buffer.position(), offset + buffer.limit());
+        }
+        int count = 0;
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            if (matches(buffer.get(i))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Compacts the matching chars to the front and moves the limit behind them.
+     *
+     * @return the new number of remaining chars
+     */
+    public int retainFrom(final CharBuffer buffer) {
+        return compact(buffer, true);
+    }
+
+    /**
+     * Compacts the chars that do not match to the front and moves the limit behind them.
+     *
+     * @return the new number of remaining chars
+     */
+    public int removeFrom(final CharBuffer buffer) {
+        return compact(buffer, false);
+    }
+
+    public int replaceFrom(final CharBuffer buffer, final char replacement) {
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset();
+            return replaceFrom(buffer.array(), offset + buffer.position(), offset + buffer.limit(), replacement);
+        }
+        int count = 0;
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            if (matches(buffer.get(i))) {
+                buffer.put(i, replacement);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int compact(final CharBuffer buffer, final boolean keepMatches) {
+        int end;
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset();
+            end = compact(buffer.array(), offset + buffer.position(), offset + buffer.limit(), keepMatches) - offset;
+        } else {
+            end = buffer.position();
+            for (int i = buffer.position(); i < buffer.limit(); i++) {
+                char c = buffer.get(i);
+                if (matches(c) == keepMatches) {
+                    buffer.put(end++, c);
+                }
+            }
+        }
+        buffer.limit(end);
+        return buffer.remaining();
+    }
+
+    // ASCII byte[]
+
+    public int countIn(final byte[] bytes, final int from, final int to) {
+        checkPositionIndexes(from, to, bytes.length);
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (matches(bytes[i])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int retainFrom(final byte[] bytes, final int from, final int to) {
+        return compact(bytes, from, to, true);
+    }
+
+    public int removeFrom(final byte[] bytes, final int from, final int to) {
+        return compact(bytes, from, to, false);
+    }
+
+    private int compact(final byte[] bytes, final int from, final int to, final boolean keepMatches) {
+        checkPositionIndexes(from, to, bytes.length);
+        int end = from;
+        for (int i = from; i < to; i++) {
+            byte b = bytes[i];
+            if (matches(b) == keepMatches) {
+                bytes[end++] = b;
+            }
+        }
+        return end;
+    }
+
+    // ASCII ByteBuffer, between position and limit; read-only buffers are counted through get(int), the methods that
+    // modify a buffer throw ReadOnlyBufferException for them
+
+    public int countIn(final ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset();
+            return countIn(buffer.array(), offset + buffer.position(), offset + buffer.limit());
+        }
+        int count = 0;
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            if (matches(buffer.get(i))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int retainFrom(final ByteBuffer buffer) {
+        return compact(buffer, true);
+    }
+
+    public int removeFrom(final ByteBuffer buffer) {
+        return compact(buffer, false);
+    }
+
+    private int compact(final ByteBuffer buffer, final boolean keepMatches) {
+        int end;
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset();
+            end = compact(buffer.array(), offset + buffer.position(), offset + buffer.limit(), keepMatches) - offset;
+        } else {
+            end = buffer.position();
+            for (int i = buffer.position(); i < buffer.limit(); i++) {
+                byte b = buffer.get(i);
+                if (matches(b) == keepMatches) {
+                    buffer.put(end++, b);
+                }
+            }
+        }
+        buffer.limit(end);
+        return buffer.remaining();
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledCharMatcher.compile(" + description + ")";
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.floppywaste.base;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.Arrays;
+
+
+/**
+ * The fields of the current input of an {@link OffsetSplitter} as offsets into that input. A cursor is reused for
+ * line after line and is not thread-safe; use one per thread.
+ */
+public final class FieldCursor {
+
+    private final OffsetSplitter splitter;
+    private CharSequence chars;
+    // start and end of field i at 2 * i and 2 * i + 1
+    private int[] offsets = new int[16];
+    private int fieldCount;
+
+    FieldCursor(final OffsetSplitter splitter) {
+        this.splitter = splitter;
+    }
+
+    /**
+     * Splits {@code input}, replacing the fields of the previous input.
+     */
+    public FieldCursor reset(final CharSequence input) {
+        chars = input;
+        fieldCount = 0;
+        splitter.split(input, this);
+        return this;
+    }
+
+    void addField(final int start, final int end) {
+        if (2 * fieldCount + 1 >= offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[2 * fieldCount] = start;
+        offsets[2 * fieldCount + 1] = end;
+        fieldCount++;
+    }
+
+    public CharSequence input() {
+        checkState(chars != null, "cursor has not been reset to an input yet");
+        return chars;
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    public int start(final int field) {
+        checkElementIndex(field, fieldCount);
+        return offsets[2 * field];
+    }
+
+    public int end(final int field) {
+        checkElementIndex(field, fieldCount);
+        return offsets[2 * field + 1];
+    }
+
+    public int length(final int field) {
+        return end(field) - start(field);
+    }
+
+    public int parseInt(final int field) {
+        return CharSequences.parseInt(chars, start(field), end(field));
+    }
+
+    public long parseLong(final int field) {
+        return CharSequences.parseLong(chars, start(field), end(field));
+    }
+
+    public boolean equalsField(final int field, final CharSequence expected) {
+        return CharSequences.regionEquals(chars, start(field), end(field), expected);
+    }
+
+    /**
+     * Copies a field into a new {@code String}, for the cases where an allocation is fine.
+     */
+    public String toString(final int field) {
+        return chars.subSequence(start(field), end(field)).toString();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("[");
+        for (int i = 0; i < fieldCount; i++) {
+            result.append(i == 0 ? "" : ", ").append(chars, start(i), end(i));
+        }
+        return result.append(']').toString();
+    }
+}
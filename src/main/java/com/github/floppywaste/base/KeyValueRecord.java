@@ -0,0 +1,146 @@
+package com.github.floppywaste.base;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+import java.util.Arrays;
+
+
+/**
+ * The entries of the current record of a {@link KeyValueTokenizer}, kept as offsets into the input. Values are parsed
+ * only when they are read, directly from the input. Lookups scan the entries linearly, which beats hashing for the
+ * handful of keys such records have. A record is reused for input after input and is not thread-safe.
+ */
+public final class KeyValueRecord {
+
+    /**
+     * Receives the entries of a record without any substring being created.
+     */
+    public interface Handler {
+        void entry(CharSequence chars, int keyStart, int keyEnd, int valueStart, int valueEnd);
+    }
+
+    private final KeyValueTokenizer tokenizer;
+    private CharSequence chars;
+    // key start, key end, value start and value end of entry i at 4 * i ... 4 * i + 3
+    private int[] offsets = new int[32];
+    private int size;
+
+    KeyValueRecord(final KeyValueTokenizer tokenizer) {
+        this.tokenizer = tokenizer;
+    }
+
+    public KeyValueRecord reset(final CharSequence input) {
+        chars = input;
+        size = 0;
+        tokenizer.tokenize(input, this);
+        return this;
+    }
+
+    void addEntry(final int keyStart, final int keyEnd, final int valueStart, final int valueEnd) {
+        if (4 * size + 3 >= offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[4 * size] = keyStart;
+        offsets[4 * size + 1] = keyEnd;
+        offsets[4 * size + 2] = valueStart;
+        offsets[4 * size + 3] = valueEnd;
+        size++;
+    }
+
+    void replaceValue(final int entry, final int valueStart, final int valueEnd) {
+        offsets[4 * entry + 2] = valueStart;
+        offsets[4 * entry + 3] = valueEnd;
+    }
+
+    /**
+     * The entry whose key equals {@code [start, end)} of the current input, or -1.
+     */
+    int indexOf(final int start, final int end) {
+        for (int entry = 0; entry < size; entry++) {
+            int keyStart = offsets[4 * entry];
+            int keyEnd = offsets[4 * entry + 1];
+            if (keyEnd - keyStart == end - start && regionMatches(chars, keyStart, start, end - start)) {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    public int indexOf(final CharSequence key) {
+        for (int entry = 0; entry < size; entry++) {
+            if (CharSequences.regionEquals(chars, offsets[4 * entry], offsets[4 * entry + 1], key)) {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(final CharSequence key) {
+        return indexOf(key) >= 0;
+    }
+
+    public long getLong(final CharSequence key, final long defaultValue) {
+        int entry = indexOf(key);
+        return entry < 0 ? defaultValue : valueAsLong(entry);
+    }
+
+    public int getInt(final CharSequence key, final int defaultValue) {
+        int entry = indexOf(key);
+        return entry < 0 ? defaultValue : valueAsInt(entry);
+    }
+
+    public boolean keyEquals(final int entry, final CharSequence expected) {
+        checkElementIndex(entry, size);
+        return CharSequences.regionEquals(chars, offsets[4 * entry], offsets[4 * entry + 1], expected);
+    }
+
+    public int valueAsInt(final int entry) {
+        checkElementIndex(entry, size);
+        return CharSequences.parseInt(chars, offsets[4 * entry + 2], offsets[4 * entry + 3]);
+    }
+
+    public long valueAsLong(final int entry) {
+        checkElementIndex(entry, size);
+        return CharSequences.parseLong(chars, offsets[4 * entry + 2], offsets[4 * entry + 3]);
+    }
+
+    public String key(final int entry) {
+        checkElementIndex(entry, size);
+        return chars.subSequence(offsets[4 * entry], offsets[4 * entry + 1]).toString();
+    }
+
+    public String value(final int entry) {
+        checkElementIndex(entry, size);
+        return chars.subSequence(offsets[4 * entry + 2], offsets[4 * entry + 3]).toString();
+    }
+
+    public void forEach(final Handler handler) {
+        for (int entry = 0; entry < size; entry++) {
+            handler.entry(chars, offsets[4 * entry], offsets[4 * entry + 1], offsets[4 * entry + 2],
+                    offsets[4 * entry + 3]);
+        }
+    }
+
+    private static boolean regionMatches(final CharSequence input, final int first, final int second,
+            final int length) {
+        for (int i = 0; i < length; i++) {
+            if (input.charAt(first + i) != input.charAt(second + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("{");
+        for (int entry = 0; entry < size; entry++) {
+            result.append(entry == 0 ? "" : ", ").append(key(entry)).append('=').append(value(entry));
+        }
+        return result.append('}').toString();
+    }
+}
@@ -0,0 +1,138 @@
+package com.github.floppywaste.base;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.CharMatcher;
+
+
+/**
+ * A streaming fast path for what {@code Splitter.withKeyValueSeparator} parses into a {@code Map<String, String>}:
+ * records like {@code {a:1, b:2, d:4}} are tokenized into offsets of a reusable {@link KeyValueRecord}, which hands
+ * the entries to a callback or answers lookups with values parsed straight from the input. The configuration is
+ * immutable like a {@code MapSplitter}.
+ *
+ * <pre>
+ * KeyValueRecord record = KeyValueTokenizer.on(',', ':')
+ *         .trimEntries(CharMatcher.anyOf("{}").or(WHITESPACE))
+ *         .trimKeysAndValues(WHITESPACE)
+ *         .record();
+ * long b = record.reset("{a:1, b:2, d:4}").getLong("b", 0);
+ * </pre>
+ */
+public final class KeyValueTokenizer {
+
+    /**
+     * What to do when a record contains the same key more than once.
+     */
+    public enum DuplicateKeyPolicy {
+        /** Throw an {@link IllegalArgumentException}, like {@code MapSplitter}. */
+        REJECT,
+        /** Keep the first entry and ignore the later ones. */
+        FIRST_WINS,
+        /** Let every later entry replace the value of the earlier one, like {@code Map.put}. */
+        LAST_WINS
+    }
+
+    private final char entrySeparator;
+    private final char keyValueSeparator;
+    private final CharMatcher entryTrimmer;
+    private final CharMatcher keyValueTrimmer;
+    private final DuplicateKeyPolicy duplicateKeyPolicy;
+
+    private KeyValueTokenizer(final char entrySeparator, final char keyValueSeparator, final CharMatcher entryTrimmer,
+            final CharMatcher keyValueTrimmer, final DuplicateKeyPolicy duplicateKeyPolicy) {
+        this.entrySeparator = entrySeparator;
+        this.keyValueSeparator = keyValueSeparator;
+        this.entryTrimmer = checkNotNull(entryTrimmer);
+        this.keyValueTrimmer = checkNotNull(keyValueTrimmer);
+        this.duplicateKeyPolicy = checkNotNull(duplicateKeyPolicy);
+    }
+
+    public static KeyValueTokenizer on(final char entrySeparator, final char keyValueSeparator) {
+        return new KeyValueTokenizer(entrySeparator, keyValueSeparator, CharMatcher.NONE, CharMatcher.NONE,
+                DuplicateKeyPolicy.REJECT);
+    }
+
+    /**
+     * Trims every entry before it is split into key and value, like {@code trimResults} of the pairs splitter.
+     */
+    public KeyValueTokenizer trimEntries(final CharMatcher trimmer) {
+        return new KeyValueTokenizer(entrySeparator, keyValueSeparator, trimmer, keyValueTrimmer,
+                duplicateKeyPolicy);
+    }
+
+    /**
+     * Trims keys and values, like {@code trimResults} of the key/value splitter.
+     */
+    public KeyValueTokenizer trimKeysAndValues(final CharMatcher trimmer) {
+        return new KeyValueTokenizer(entrySeparator, keyValueSeparator, entryTrimmer, trimmer, duplicateKeyPolicy);
+    }
+
+    public KeyValueTokenizer onDuplicateKey(final DuplicateKeyPolicy policy) {
+        return new KeyValueTokenizer(entrySeparator, keyValueSeparator, entryTrimmer, keyValueTrimmer, policy);
+    }
+
+    public KeyValueRecord record() {
+        return new KeyValueRecord(this);
+    }
+
+    void tokenize(final CharSequence chars, final KeyValueRecord record) {
+        int length = chars.length();
+        int entryStart = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || chars.charAt(i) == entrySeparator) {
+                addEntry(chars, entryStart, i, record);
+                entryStart = i + 1;
+            }
+        }
+    }
+
+    private void addEntry(final CharSequence chars, final int start, final int end, final KeyValueRecord record) {
+        int entryStart = trimStart(entryTrimmer, chars, start, end);
+        int entryEnd = trimEnd(entryTrimmer, chars, entryStart, end);
+        int separator = -1;
+        for (int i = entryStart; i < entryEnd; i++) {
+            if (chars.charAt(i) == keyValueSeparator) {
+                if (separator >= 0) {
+                    separator = -1;
+                    break;
+                }
+                separator = i;
+            }
+        }
+        if (separator < 0) {
+            throw new IllegalArgumentException("Chunk [" + chars.subSequence(entryStart, entryEnd)
+                    + "] is not a valid entry");
+        }
+        int keyStart = trimStart(keyValueTrimmer, chars, entryStart, separator);
+        int keyEnd = trimEnd(keyValueTrimmer, chars, keyStart, separator);
+        int valueStart = trimStart(keyValueTrimmer, chars, separator + 1, entryEnd);
+        int valueEnd = trimEnd(keyValueTrimmer, chars, valueStart, entryEnd);
+
+        int existing = record.indexOf(keyStart, keyEnd);
+        if (existing < 0) {
+            record.addEntry(keyStart, keyEnd, valueStart, valueEnd);
+        } else if (duplicateKeyPolicy == DuplicateKeyPolicy.LAST_WINS) {
+            record.replaceValue(existing, valueStart, valueEnd);
+        } else if (duplicateKeyPolicy == DuplicateKeyPolicy.REJECT) {
+            throw new IllegalArgumentException("Duplicate key [" + chars.subSequence(keyStart, keyEnd) + "] found.");
+        }
+    }
+
+    private static int trimStart(final CharMatcher trimmer, final CharSequence chars, final int start,
+            final int end) {
+        int trimmed = start;
+        while (trimmed < end && trimmer.matches(chars.charAt(trimmed))) {
+            trimmed++;
+        }
+        return trimmed;
+    }
+
+    private static int trimEnd(final CharMatcher trimmer, final CharSequence chars, final int start, final int end) {
+        int trimmed = end;
+        while (trimmed > start && trimmer.matches(chars.charAt(trimmed - 1))) {
+            trimmed--;
+        }
+        return trimmed;
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.floppywaste.base;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.CharMatcher;
+
+
+/**
+ * A {@code Splitter} that reports fields as {@code [start, end)} offsets into the input instead of substrings. The
+ * configuration is immutable and shared like a {@code Splitter}; the offsets of a line are written into a reusable
+ * {@link FieldCursor}, so splitting and reading fields allocates nothing once the cursor is large enough.
+ *
+ * <pre>
+ * FieldCursor fields = OffsetSplitter.on(',').trimResults().cursor();
+ * for (String line : lines) {
+ *     fields.reset(line);
+ *     if (fields.equalsField(0, "Sensor A")) {
+ *         sum += fields.parseInt(2);
+ *     }
+ * }
+ * </pre>
+ */
+public final class OffsetSplitter {
+
+    private final CharMatcher separator;
+    private final CharMatcher trimmer;
+    private final boolean omitEmptyStrings;
+
+    private OffsetSplitter(final CharMatcher separator, final CharMatcher trimmer, final boolean omitEmptyStrings) {
+        this.separator = checkNotNull(separator);
+        this.trimmer = checkNotNull(trimmer);
+        this.omitEmptyStrings = omitEmptyStrings;
+    }
+
+    public static OffsetSplitter on(final char separator) {
+        return on(CharMatcher.is(separator));
+    }
+
+    public static OffsetSplitter on(final CharMatcher separator) {
+        return new OffsetSplitter(separator, CharMatcher.NONE, false);
+    }
+
+    /**
+     * Same as {@code Splitter.omitEmptyStrings()}: fields that are empty after trimming are skipped.
+     */
+    public OffsetSplitter omitEmptyStrings() {
+        return new OffsetSplitter(separator, trimmer, true);
+    }
+
+    /**
+     * Same as {@code Splitter.trimResults()}: the offsets exclude leading and trailing whitespace.
+     */
+    public OffsetSplitter trimResults() {
+        return trimResults(CharMatcher.WHITESPACE);
+    }
+
+    public OffsetSplitter trimResults(final CharMatcher trimmer) {
+        return new OffsetSplitter(separator, trimmer, omitEmptyStrings);
+    }
+
+    public FieldCursor cursor() {
+        return new FieldCursor(this);
+    }
+
+    /**
+     * Writes the field offsets of {@code chars} into {@code cursor}; the cursor calls this on {@code reset}.
+     */
+    void split(final CharSequence chars, final FieldCursor cursor) {
+        int length = chars.length();
+        int fieldStart = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || separator.matches(chars.charAt(i))) {
+                addField(chars, fieldStart, i, cursor);
+                fieldStart = i + 1;
+            }
+        }
+    }
+
+    private void addField(final CharSequence chars, final int start, final int end, final FieldCursor cursor) {
+        int trimmedStart = start;
+        int trimmedEnd = end;
+        while (trimmedStart < trimmedEnd && trimmer.matches(chars.charAt(trimmedStart))) {
+            trimmedStart++;
+        }
+        while (trimmedEnd > trimmedStart && trimmer.matches(chars.charAt(trimmedEnd - 1))) {
+            trimmedEnd--;
+        }
+        if (!omitEmptyStrings || trimmedStart < trimmedEnd) {
+            cursor.addField(trimmedStart, trimmedEnd);
+        }
+    }
+}
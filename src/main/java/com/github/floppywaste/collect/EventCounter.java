@@ -0,0 +1,131 @@
+package com.github.floppywaste.collect;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.Multiset;
+import com.google.common.primitives.Ints;
+
+
+/**
+ * Counts events from many threads at once. Every event has its own {@link LongAdder}, whose striped cells keep
+ * concurrent increments of the same event from contending on a single memory location, and the map lookup is a
+ * lock-free read once an event is known. Results are handed out as immutable {@link Multiset} snapshots.
+ *
+ * <p>A snapshot is weakly consistent: every count in it is a value its counter actually had while the snapshot was
+ * taken, but increments that race with the snapshot may be included for some events and not yet for others.
+ */
+public final class EventCounter<E> {
+
+    private final ConcurrentMap<E, LongAdder> counters = new ConcurrentHashMap<E, LongAdder>();
+
+    private EventCounter() {
+    }
+
+    public static <E> EventCounter<E> create() {
+        return new EventCounter<E>();
+    }
+
+    public void add(final E event) {
+        counter(event).increment();
+    }
+
+    public void add(final E event, final long occurrences) {
+        checkArgument(occurrences >= 0, "occurrences must not be negative: %s", occurrences);
+        counter(event).add(occurrences);
+    }
+
+    /**
+     * Adds the counts of a single-threaded reporter, e.g. a {@code HashMultiset} filled by one worker.
+     */
+    public void addAll(final Multiset<? extends E> reporter) {
+        for (Multiset.Entry<? extends E> entry : reporter.entrySet()) {
+            add(entry.getElement(), entry.getCount());
+        }
+    }
+
+    public void addAll(final EventCounter<? extends E> other) {
+        for (Map.Entry<? extends E, LongAdder> entry : other.counters.entrySet()) {
+            add(entry.getKey(), entry.getValue().sum());
+        }
+    }
+
+    public long count(final Object event) {
+        LongAdder counter = counters.get(event);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Live, unmodifiable view of every event counted so far, including those reset to zero by
+     * {@link #snapshotAndReset()}. Events are only ever added through the counter itself.
+     */
+    public Set<E> events() {
+        return Collections.unmodifiableSet(counters.keySet());
+    }
+
+    public ImmutableMultiset<E> snapshot() {
+        ImmutableMultiset.Builder<E> builder = ImmutableMultiset.builder();
+        for (Map.Entry<E, LongAdder> entry : counters.entrySet()) {
+            builder.addCopies(entry.getKey(), Ints.saturatedCast(entry.getValue().sum()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Takes a snapshot and resets every counter in the same pass. Increments that race with the reset are counted in
+     * either this snapshot or the next one, never in both and never lost.
+     */
+    public ImmutableMultiset<E> snapshotAndReset() {
+        ImmutableMultiset.Builder<E> builder = ImmutableMultiset.builder();
+        for (Map.Entry<E, LongAdder> entry : counters.entrySet()) {
+            builder.addCopies(entry.getKey(), Ints.saturatedCast(drain(entry.getValue())));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Sums the snapshots of many reporters without stopping any of them.
+     */
+    public static <E> ImmutableMultiset<E> sum(final Iterable<? extends EventCounter<? extends E>> reporters) {
+        EventCounter<E> total = create();
+        for (EventCounter<? extends E> reporter : reporters) {
+            total.addAll(reporter);
+        }
+        return total.snapshot();
+    }
+
+    /*
+     * LongAdder.sumThenReset() may lose increments that happen between summing and resetting a cell, subtracting the
+     * drained amount instead keeps them.
+     */
+    private static long drain(final LongAdder counter) {
+        long drained = counter.sum();
+        counter.add(-drained);
+        return drained;
+    }
+
+    private LongAdder counter(final E event) {
+        LongAdder counter = counters.get(checkNotNull(event));
+        if (counter == null) {
+            LongAdder created = new LongAdder();
+            counter = counters.putIfAbsent(event, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        return counter;
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+}
@@ -0,0 +1,123 @@
+package com.github.floppywaste.collect;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.Arrays;
+
+import com.google.common.primitives.Ints;
+
+
+/**
+ * A growable {@code int[]} with aggregations that run directly on the primitive values: one reading costs four bytes
+ * instead of an {@code Integer} plus a list slot.
+ */
+public final class IntColumn {
+
+    private static final int DEFAULT_CAPACITY = 8;
+
+    // the column of an absent key in IntMultimap; without capacity it can never grow, so appending to it fails
+    static final IntColumn EMPTY = new IntColumn(0);
+
+    private int[] values;
+    private int size;
+
+    public IntColumn() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntColumn(final int initialCapacity) {
+        checkArgument(initialCapacity >= 0, "initialCapacity must not be negative: %s", initialCapacity);
+        values = new int[initialCapacity];
+    }
+
+    public void add(final int value) {
+        ensureCapacity(size + 1);
+        values[size++] = value;
+    }
+
+    public void addAll(final int[] source, final int from, final int to) {
+        checkPositionIndexes(from, to, source.length);
+        ensureCapacity(size + to - from);
+        System.arraycopy(source, from, values, size, to - from);
+        size += to - from;
+    }
+
+    public void addAll(final IntColumn other) {
+        addAll(other.values, 0, other.size);
+    }
+
+    public int get(final int index) {
+        checkElementIndex(index, size);
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    /**
+     * The exact mean, computed from the {@code long} sum like {@code DeviceStatistics.mean()}.
+     */
+    public double mean() {
+        checkState(size > 0, "column is empty");
+        return (double) sum() / size;
+    }
+
+    /**
+     * The {@code p}-th percentile ({@code 0 <= p <= 100}) with linear interpolation between the two closest ranks.
+     */
+    public double percentile(final double p) {
+        return percentiles(p)[0];
+    }
+
+    /**
+     * Several percentiles at the cost of a single sort of a copy of the values.
+     */
+    public double[] percentiles(final double... ps) {
+        checkState(size > 0, "column is empty");
+        int[] sorted = toArray();
+        Arrays.sort(sorted);
+        double[] result = new double[ps.length];
+        for (int i = 0; i < ps.length; i++) {
+            checkArgument(ps[i] >= 0 && ps[i] <= 100, "percentile out of range: %s", ps[i]);
+            double rank = ps[i] / 100 * (size - 1);
+            int lower = (int) rank;
+            int upper = Math.min(lower + 1, size - 1);
+            result[i] = sorted[lower] + (rank - lower) * ((double) sorted[upper] - sorted[lower]);
+        }
+        return result;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    private void ensureCapacity(final int minCapacity) {
+        if (minCapacity > values.length) {
+            if (this == EMPTY) {
+                throw new UnsupportedOperationException("the column of an absent key cannot be modified");
+            }
+            values = Arrays.copyOf(values, Math.max(minCapacity, Ints.saturatedCast(values.length * 2L)));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
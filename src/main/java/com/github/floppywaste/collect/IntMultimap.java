@@ -0,0 +1,127 @@
+package com.github.floppywaste.collect;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Maps;
+
+
+/**
+ * Maps keys to {@link IntColumn}s: the unboxed counterpart of a {@code Multimap<K, Integer>}. Keys keep the order of
+ * their first insertion, like {@code Multimaps.index}.
+ *
+ * <pre>
+ * IntMultimap&lt;String&gt; valuesPerDevice =
+ *         IntMultimap.index(csvTable, elementAt(0), row -&gt; parseInt(row.get(2)));
+ * double mean = valuesPerDevice.mean("Sensor A");
+ * </pre>
+ */
+public final class IntMultimap<K> {
+
+    private final Map<K, IntColumn> columns = Maps.newLinkedHashMap();
+
+    private IntMultimap() {
+    }
+
+    public static <K> IntMultimap<K> create() {
+        return new IntMultimap<K>();
+    }
+
+    /**
+     * Groups {@code rows} by {@code keyFunction} and keeps only the value extracted by {@code valueFunction}, which
+     * never boxes.
+     */
+    public static <K, T> IntMultimap<K> index(final Iterable<T> rows, final Function<? super T, K> keyFunction,
+            final ToIntFunction<? super T> valueFunction) {
+        IntMultimap<K> result = create();
+        for (T row : rows) {
+            result.put(keyFunction.apply(row), valueFunction.applyAsInt(row));
+        }
+        return result;
+    }
+
+    public void put(final K key, final int value) {
+        column(key).add(value);
+    }
+
+    /**
+     * Appends {@code values[from, to)} to the column of {@code key}.
+     */
+    public void putAll(final K key, final int[] values, final int from, final int to) {
+        column(key).addAll(values, from, to);
+    }
+
+    public void putAll(final IntMultimap<? extends K> other) {
+        for (Map.Entry<? extends K, IntColumn> entry : other.columns.entrySet()) {
+            column(entry.getKey()).addAll(entry.getValue());
+        }
+    }
+
+    /**
+     * The live column of {@code key}: values appended to it are values of the key, as with {@link #put}. For an
+     * absent key it is a shared empty column that throws {@code UnsupportedOperationException} when appended to,
+     * since there is no key for the values to belong to; use {@link #put} to add the key.
+     */
+    public IntColumn get(final K key) {
+        IntColumn column = columns.get(key);
+        return column == null ? IntColumn.EMPTY : column;
+    }
+
+    public boolean containsKey(final Object key) {
+        return columns.containsKey(key);
+    }
+
+    public Set<K> keySet() {
+        return Collections.unmodifiableSet(columns.keySet());
+    }
+
+    public Map<K, IntColumn> asMap() {
+        return Collections.unmodifiableMap(columns);
+    }
+
+    /**
+     * The total number of values over all keys, which may exceed {@code Integer.MAX_VALUE} with many keys.
+     */
+    public long size() {
+        long size = 0;
+        for (IntColumn column : columns.values()) {
+            size += column.size();
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public long sum(final K key) {
+        return get(key).sum();
+    }
+
+    public double mean(final K key) {
+        return get(key).mean();
+    }
+
+    public double percentile(final K key, final double p) {
+        return get(key).percentile(p);
+    }
+
+    private IntColumn column(final K key) {
+        IntColumn column = columns.get(checkNotNull(key));
+        if (column == null) {
+            column = new IntColumn();
+            columns.put(key, column);
+        }
+        return column;
+    }
+
+    @Override
+    public String toString() {
+        return columns.toString();
+    }
+}
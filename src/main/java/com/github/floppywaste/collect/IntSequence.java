@@ -0,0 +1,266 @@
+package com.github.floppywaste.collect;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+
+/**
+ * An endless sequence of {@code int}s that can jump straight to its {@linkplain #nth(long) nth} element, unlike an
+ * {@code AbstractSequentialIterator<Integer>} that can only step from one boxed value to the next. Because any index
+ * is reachable directly, a range of the sequence {@linkplain #spliterator(long, long) splits} into even halves for a
+ * parallel stream, and {@linkplain #partition(long, long, int) batches} of it are filled independently.
+ *
+ * <pre>
+ * IntSequence naturals = IntSequence.arithmetic(1, 1);
+ * long sum = naturals.stream(0, 1000000000).parallel().asLongStream().sum();
+ * </pre>
+ *
+ * Implementations define {@link #nth(long)} and may override {@link #next(int, long)} when stepping from the previous
+ * element is cheaper than the jump, which is what a spliterator does within its part of the range.
+ */
+public abstract class IntSequence {
+
+    private static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED
+            | Spliterator.IMMUTABLE | Spliterator.NONNULL;
+
+    protected IntSequence() {
+    }
+
+    /**
+     * {@code start, start + step, start + 2 * step, ...}, wrapping around on overflow like repeated {@code int}
+     * additions do.
+     */
+    public static IntSequence arithmetic(final int start, final int step) {
+        return new IntSequence() {
+
+            @Override
+            public int nth(final long index) {
+                return start + (int) (index * step);
+            }
+
+            @Override
+            protected int next(final int previous, final long index) {
+                return previous + step;
+            }
+        };
+    }
+
+    /**
+     * The {@code values} over and over again, like {@code Iterables.cycle}.
+     */
+    public static IntSequence cycle(final int... values) {
+        checkArgument(values.length > 0, "values must not be empty");
+        final int[] copy = values.clone();
+        return new IntSequence() {
+
+            @Override
+            public int nth(final long index) {
+                return copy[(int) (index % copy.length)];
+            }
+        };
+    }
+
+    /**
+     * Pseudo-random values from 0 (inclusive) to {@code bound} (exclusive), e.g. device ids for a load generator. The
+     * nth value is a hash of {@code seed} and n, so the same seed gives the same sequence however it is split. The
+     * upper 32 bits of the hash are scaled to the bound, so when {@code bound} is not a power of two some values,
+     * spread evenly over the whole range, are picked by one hash more than the others and are very slightly more
+     * likely.
+     */
+    public static IntSequence random(final long seed, final int bound) {
+        checkArgument(bound > 0, "bound must be positive: %s", bound);
+        final LongSequence hashes = LongSequence.random(seed);
+        return new IntSequence() {
+
+            @Override
+            public int nth(final long index) {
+                return (int) (((hashes.nth(index) >>> 32) * bound) >>> 32);
+            }
+        };
+    }
+
+    /**
+     * The element at {@code index}, counting from 0.
+     */
+    public abstract int nth(long index);
+
+    /**
+     * The element at {@code index}, given the one at {@code index - 1}. Computes it with {@link #nth(long)}.
+     */
+    protected int next(final int previous, final long index) {
+        return nth(index);
+    }
+
+    /**
+     * Writes the elements from index {@code from} on into all of {@code batch}, stepping with
+     * {@link #next(int, long)}, so a batch array can be reused without allocating.
+     */
+    public int[] fill(final int[] batch, final long from) {
+        checkIndexes(from, from + batch.length);
+        if (batch.length > 0) {
+            int value = nth(from);
+            batch[0] = value;
+            for (int i = 1; i < batch.length; i++) {
+                value = next(value, from + i);
+                batch[i] = value;
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * The elements from index {@code from} (inclusive) to {@code to} (exclusive), splitting into halves of the
+     * range.
+     */
+    public Spliterator.OfInt spliterator(final long from, final long to) {
+        checkIndexes(from, to);
+        return new RangeSpliterator(from, to);
+    }
+
+    /**
+     * A sequential stream of the elements from index {@code from} (inclusive) to {@code to} (exclusive). Unlike
+     * {@code limit} on an endless stream, the range splits evenly when the stream is made parallel.
+     */
+    public IntStream stream(final long from, final long to) {
+        return StreamSupport.intStream(spliterator(from, to), false);
+    }
+
+    /**
+     * The elements from index {@code from} (inclusive) to {@code to} (exclusive) in consecutive arrays of
+     * {@code size}, the last one possibly smaller, like {@code Iterables.partition}. Every batch is a new array,
+     * filled when it is reached; the spliterator splits at batch boundaries, so
+     * {@code StreamSupport.stream(batches.spliterator(), true)} hands whole batches to the threads.
+     */
+    public Iterable<int[]> partition(final long from, final long to, final int size) {
+        checkIndexes(from, to);
+        checkArgument(size > 0, "size must be positive: %s", size);
+        return new Iterable<int[]>() {
+
+            @Override
+            public Iterator<int[]> iterator() {
+                return Spliterators.iterator(spliterator());
+            }
+
+            @Override
+            public Spliterator<int[]> spliterator() {
+                return new BatchSpliterator(from, to, size);
+            }
+        };
+    }
+
+    static void checkIndexes(final long from, final long to) {
+        checkArgument(from >= 0 && from <= to, "invalid range from %s to %s", from, to);
+    }
+
+    private final class RangeSpliterator implements Spliterator.OfInt {
+        private long index;
+        private final long fence;
+
+        RangeSpliterator(final long from, final long to) {
+            this.index = from;
+            this.fence = to;
+        }
+
+        @Override
+        public OfInt trySplit() {
+            long middle = index + (fence - index) / 2;
+            if (middle == index) {
+                return null;
+            }
+            OfInt prefix = new RangeSpliterator(index, middle);
+            index = middle;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(final IntConsumer action) {
+            checkNotNull(action);
+            if (index >= fence) {
+                return false;
+            }
+            action.accept(nth(index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(final IntConsumer action) {
+            checkNotNull(action);
+            long i = index;
+            if (i >= fence) {
+                return;
+            }
+            index = fence;
+            int value = nth(i);
+            action.accept(value);
+            while (++i < fence) {
+                value = next(value, i);
+                action.accept(value);
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return CHARACTERISTICS;
+        }
+    }
+
+    private final class BatchSpliterator implements Spliterator<int[]> {
+        private long index;
+        private final long fence;
+        private final int size;
+
+        BatchSpliterator(final long from, final long to, final int size) {
+            this.index = from;
+            this.fence = to;
+            this.size = size;
+        }
+
+        @Override
+        public Spliterator<int[]> trySplit() {
+            long batches = estimateSize();
+            if (batches < 2) {
+                return null;
+            }
+            long middle = index + batches / 2 * size;
+            Spliterator<int[]> prefix = new BatchSpliterator(index, middle, size);
+            index = middle;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super int[]> action) {
+            checkNotNull(action);
+            if (index >= fence) {
+                return false;
+            }
+            int[] batch = fill(new int[(int) Math.min(size, fence - index)], index);
+            index += batch.length;
+            action.accept(batch);
+            return true;
+        }
+
+        @Override
+        public long estimateSize() {
+            long remaining = fence - index;
+            return remaining / size + (remaining % size == 0 ? 0 : 1);
+        }
+
+        @Override
+        public int characteristics() {
+            return CHARACTERISTICS;
+        }
+    }
+}
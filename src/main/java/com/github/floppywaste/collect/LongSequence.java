@@ -0,0 +1,264 @@
+package com.github.floppywaste.collect;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+
+/**
+ * An endless sequence of {@code long}s that can jump straight to its {@linkplain #nth(long) nth} element, unlike an
+ * {@code AbstractSequentialIterator<Long>} that can only step from one boxed value to the next. Because any index
+ * is reachable directly, a range of the sequence {@linkplain #spliterator(long, long) splits} into even halves for a
+ * parallel stream, and {@linkplain #partition(long, long, int) batches} of it are filled independently.
+ *
+ * <pre>
+ * LongSequence naturals = LongSequence.arithmetic(1, 1);
+ * long sum = naturals.stream(0, 1000000000).parallel().sum();
+ * </pre>
+ *
+ * Implementations define {@link #nth(long)} and may override {@link #next(long, long)} when stepping from the previous
+ * element is cheaper than the jump, which is what a spliterator does within its part of the range.
+ */
+public abstract class LongSequence {
+
+    private static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED
+            | Spliterator.IMMUTABLE | Spliterator.NONNULL;
+
+    // the SplitMix64 increment, 2^64 divided by the golden ratio
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    protected LongSequence() {
+    }
+
+    /**
+     * {@code start, start + step, start + 2 * step, ...}, wrapping around on overflow like repeated {@code long}
+     * additions do; e.g. timestamps every {@code step} milliseconds from {@code start} on.
+     */
+    public static LongSequence arithmetic(final long start, final long step) {
+        return new LongSequence() {
+
+            @Override
+            public long nth(final long index) {
+                return start + index * step;
+            }
+
+            @Override
+            protected long next(final long previous, final long index) {
+                return previous + step;
+            }
+        };
+    }
+
+    /**
+     * The {@code values} over and over again, like {@code Iterables.cycle}.
+     */
+    public static LongSequence cycle(final long... values) {
+        checkArgument(values.length > 0, "values must not be empty");
+        final long[] copy = values.clone();
+        return new LongSequence() {
+
+            @Override
+            public long nth(final long index) {
+                return copy[(int) (index % copy.length)];
+            }
+        };
+    }
+
+    /**
+     * Pseudo-random 64 bit values: the nth value is the SplitMix64 hash of {@code seed} and n, so the same seed gives
+     * the same sequence however it is split, and consecutive elements are as unrelated as those of
+     * {@code SplittableRandom}.
+     */
+    public static LongSequence random(final long seed) {
+        return new LongSequence() {
+
+            @Override
+            public long nth(final long index) {
+                long z = seed + (index + 1) * GOLDEN_GAMMA;
+                z = (z ^ z >>> 30) * 0xBF58476D1CE4E5B9L;
+                z = (z ^ z >>> 27) * 0x94D049BB133111EBL;
+                return z ^ z >>> 31;
+            }
+        };
+    }
+
+    /**
+     * The element at {@code index}, counting from 0.
+     */
+    public abstract long nth(long index);
+
+    /**
+     * The element at {@code index}, given the one at {@code index - 1}. Computes it with {@link #nth(long)}.
+     */
+    protected long next(final long previous, final long index) {
+        return nth(index);
+    }
+
+    /**
+     * Writes the elements from index {@code from} on into all of {@code batch}, stepping with
+     * {@link #next(long, long)}, so a batch array can be reused without allocating.
+     */
+    public long[] fill(final long[] batch, final long from) {
+        IntSequence.checkIndexes(from, from + batch.length);
+        if (batch.length > 0) {
+            long value = nth(from);
+            batch[0] = value;
+            for (int i = 1; i < batch.length; i++) {
+                value = next(value, from + i);
+                batch[i] = value;
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * The elements from index {@code from} (inclusive) to {@code to} (exclusive), splitting into halves of the
+     * range.
+     */
+    public Spliterator.OfLong spliterator(final long from, final long to) {
+        IntSequence.checkIndexes(from, to);
+        return new RangeSpliterator(from, to);
+    }
+
+    /**
+     * A sequential stream of the elements from index {@code from} (inclusive) to {@code to} (exclusive). Unlike
+     * {@code limit} on an endless stream, the range splits evenly when the stream is made parallel.
+     */
+    public LongStream stream(final long from, final long to) {
+        return StreamSupport.longStream(spliterator(from, to), false);
+    }
+
+    /**
+     * The elements from index {@code from} (inclusive) to {@code to} (exclusive) in consecutive arrays of
+     * {@code size}, the last one possibly smaller, like {@code Iterables.partition}. Every batch is a new array,
+     * filled when it is reached; the spliterator splits at batch boundaries, so
+     * {@code StreamSupport.stream(batches.spliterator(), true)} hands whole batches to the threads.
+     */
+    public Iterable<long[]> partition(final long from, final long to, final int size) {
+        IntSequence.checkIndexes(from, to);
+        checkArgument(size > 0, "size must be positive: %s", size);
+        return new Iterable<long[]>() {
+
+            @Override
+            public Iterator<long[]> iterator() {
+                return Spliterators.iterator(spliterator());
+            }
+
+            @Override
+            public Spliterator<long[]> spliterator() {
+                return new BatchSpliterator(from, to, size);
+            }
+        };
+    }
+
+    private final class RangeSpliterator implements Spliterator.OfLong {
+        private long index;
+        private final long fence;
+
+        RangeSpliterator(final long from, final long to) {
+            this.index = from;
+            this.fence = to;
+        }
+
+        @Override
+        public OfLong trySplit() {
+            long middle = index + (fence - index) / 2;
+            if (middle == index) {
+                return null;
+            }
+            OfLong prefix = new RangeSpliterator(index, middle);
+            index = middle;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(final LongConsumer action) {
+            checkNotNull(action);
+            if (index >= fence) {
+                return false;
+            }
+            action.accept(nth(index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(final LongConsumer action) {
+            checkNotNull(action);
+            long i = index;
+            if (i >= fence) {
+                return;
+            }
+            index = fence;
+            long value = nth(i);
+            action.accept(value);
+            while (++i < fence) {
+                value = next(value, i);
+                action.accept(value);
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return CHARACTERISTICS;
+        }
+    }
+
+    private final class BatchSpliterator implements Spliterator<long[]> {
+        private long index;
+        private final long fence;
+        private final int size;
+
+        BatchSpliterator(final long from, final long to, final int size) {
+            this.index = from;
+            this.fence = to;
+            this.size = size;
+        }
+
+        @Override
+        public Spliterator<long[]> trySplit() {
+            long batches = estimateSize();
+            if (batches < 2) {
+                return null;
+            }
+            long middle = index + batches / 2 * size;
+            Spliterator<long[]> prefix = new BatchSpliterator(index, middle, size);
+            index = middle;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super long[]> action) {
+            checkNotNull(action);
+            if (index >= fence) {
+                return false;
+            }
+            long[] batch = fill(new long[(int) Math.min(size, fence - index)], index);
+            index += batch.length;
+            action.accept(batch);
+            return true;
+        }
+
+        @Override
+        public long estimateSize() {
+            long remaining = fence - index;
+            return remaining / size + (remaining % size == 0 ? 0 : 1);
+        }
+
+        @Override
+        public int characteristics() {
+            return CHARACTERISTICS;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.github.floppywaste.collect;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Collections2;
+import com.google.common.collect.ForwardingMap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+
+/**
+ * Memoizing counterparts of {@code Lists.transform}, {@code Maps.transformValues} and
+ * {@code Multimaps.transformValues}. The views stay lazy, but every element is computed at most once until the cache
+ * evicts it. Eviction is configured with a {@link CacheBuilder}, e.g. {@code maximumSize} or {@code maximumWeight}
+ * with a weigher; statistics are always recorded. Concurrent readers of a missing element wait for a single
+ * computation instead of repeating it.
+ *
+ * <p>Results are cached by list index or map key, so the backing collection should not change while the view is in
+ * use (or call {@code invalidateAll()} when it does). The function must not return {@code null}.
+ */
+public final class Memoizing {
+
+    private Memoizing() {
+    }
+
+    public static <F, T> MemoizedList<T> transform(final List<F> fromList,
+            final Function<? super F, ? extends T> function, final CacheBuilder<? super Integer, ? super T> builder) {
+        checkNotNull(fromList);
+        checkNotNull(function);
+        LoadingCache<Integer, T> cache = builder.recordStats().build(new CacheLoader<Integer, T>() {
+
+            @Override
+            public T load(final Integer index) {
+                return function.apply(fromList.get(index));
+            }
+        });
+        return new MemoizedList<T>(fromList, cache);
+    }
+
+    public static <K, V1, V2> MemoizedMap<K, V2> transformValues(final Map<K, V1> fromMap,
+            final Function<? super V1, ? extends V2> function, final CacheBuilder<? super K, ? super V2> builder) {
+        checkNotNull(fromMap);
+        checkNotNull(function);
+        LoadingCache<K, V2> cache = builder.recordStats().build(new CacheLoader<K, V2>() {
+
+            @Override
+            public V2 load(final K key) {
+                return function.apply(fromMap.get(key));
+            }
+        });
+        return new MemoizedMap<K, V2>(fromMap, cache);
+    }
+
+    /**
+     * Transforms the values of every key of {@code fromMultimap} in one go, the first time the key is read. The
+     * result is a map view like {@code Multimap.asMap()}, which is what aggregations over the values consume.
+     */
+    public static <K, V1, V2> MemoizedMap<K, List<V2>> transformValues(final Multimap<K, V1> fromMultimap,
+            final Function<? super V1, V2> function, final CacheBuilder<? super K, ? super List<V2>> builder) {
+        checkNotNull(function);
+        return transformValues(fromMultimap.asMap(), new Function<Collection<V1>, List<V2>>() {
+
+            @Override
+            public List<V2> apply(final Collection<V1> input) {
+                return ImmutableList.copyOf(Collections2.transform(input, function));
+            }
+        }, builder);
+    }
+
+    private static <K, V> V get(final LoadingCache<K, V> cache, final K key) {
+        try {
+            return cache.getUnchecked(key);
+        } catch (UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    public static final class MemoizedList<T> extends AbstractList<T> implements RandomAccess {
+
+        private final List<?> fromList;
+        private final LoadingCache<Integer, T> cache;
+
+        MemoizedList(final List<?> fromList, final LoadingCache<Integer, T> cache) {
+            this.fromList = fromList;
+            this.cache = cache;
+        }
+
+        @Override
+        public T get(final int index) {
+            if (index < 0 || index >= fromList.size()) {
+                throw new IndexOutOfBoundsException("index " + index + " of size " + fromList.size());
+            }
+            return Memoizing.get(cache, index);
+        }
+
+        @Override
+        public int size() {
+            return fromList.size();
+        }
+
+        public CacheStats stats() {
+            return cache.stats();
+        }
+
+        public void invalidateAll() {
+            cache.invalidateAll();
+        }
+    }
+
+    public static final class MemoizedMap<K, V> extends ForwardingMap<K, V> {
+
+        private final Map<K, V> delegate;
+        private final LoadingCache<K, V> cache;
+
+        MemoizedMap(final Map<K, ?> fromMap, final LoadingCache<K, V> cache) {
+            this.cache = cache;
+            this.delegate = Maps.asMap(fromMap.keySet(), new Function<K, V>() {
+
+                @Override
+                public V apply(final K key) {
+                    return Memoizing.get(cache, key);
+                }
+            });
+        }
+
+        @Override
+        protected Map<K, V> delegate() {
+            return delegate;
+        }
+
+        public CacheStats stats() {
+            return cache.stats();
+        }
+
+        public void invalidateAll() {
+            cache.invalidateAll();
+        }
+    }
+}
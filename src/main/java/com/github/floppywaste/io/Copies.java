@@ -0,0 +1,137 @@
+package com.github.floppywaste.io;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.io.ByteSink;
+import com.google.common.io.ByteSource;
+import com.google.common.io.Closer;
+import com.google.common.io.Files;
+
+
+/**
+ * Copies that touch every byte as few times as possible. {@code Guava05_IO} copies through a heap buffer and then
+ * reads source and copy again to compare their hashes; here a plain file copy is left to the kernel with
+ * {@link FileChannel#transferTo}, and a verified copy hashes the bytes while they pass through the buffer, so the data
+ * is read and written exactly once.
+ */
+public final class Copies {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private Copies() {
+    }
+
+    /**
+     * Copies {@code from} to {@code to} without the bytes entering the JVM heap, where the platform supports it.
+     *
+     * @return the number of bytes copied, fewer than the size of {@code from} if it shrank during the copy
+     * @throws IllegalArgumentException if {@code from} and {@code to} are the same file
+     */
+    public static long copy(final File from, final File to) throws IOException {
+        checkArgument(!from.equals(to), "Source %s and destination %s must be different", from, to);
+        Closer closer = Closer.create();
+        try {
+            FileChannel in = closer.register(new FileInputStream(from)).getChannel();
+            FileChannel out = closer.register(new FileOutputStream(to)).getChannel();
+            long size = in.size();
+            long position = 0;
+            // transferTo may move fewer bytes than requested, e.g. at most 2GB at a time on Linux
+            while (position < size) {
+                long transferred = in.transferTo(position, size - position, out);
+                if (transferred == 0) {
+                    // the source was truncated meanwhile
+                    break;
+                }
+                position += transferred;
+            }
+            return position;
+        } catch (Throwable e) {
+            throw closer.rethrow(e);
+        } finally {
+            closer.close();
+        }
+    }
+
+    /**
+     * Copies {@code from} to {@code to} and hashes the bytes on the way, so no second read of either end is needed to
+     * know the digest of what was written.
+     */
+    public static HashCode copyAndHash(final ByteSource from, final ByteSink to, final HashFunction hashFunction)
+            throws IOException {
+        Hasher hasher = hashFunction.newHasher();
+        Closer closer = Closer.create();
+        try {
+            InputStream in = closer.register(from.openStream());
+            OutputStream out = closer.register(to.openStream());
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                hasher.putBytes(buffer, 0, read);
+                out.write(buffer, 0, read);
+            }
+            out.flush();
+            return hasher.hash();
+        } catch (Throwable e) {
+            throw closer.rethrow(e);
+        } finally {
+            closer.close();
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code from} and {@code to} are the same file
+     */
+    public static HashCode copyAndHash(final File from, final File to, final HashFunction hashFunction)
+            throws IOException {
+        checkArgument(!from.equals(to), "Source %s and destination %s must be different", from, to);
+        return copyAndHash(Files.asByteSource(from), Files.asByteSink(to), hashFunction);
+    }
+
+    /**
+     * Like {@link #copyAndHash(ByteSource, ByteSink, HashFunction)}, but fails if the digest is not the
+     * {@code expected} one, e.g. a checksum recorded when the source was created. The copy has been written when the
+     * digest is checked, so a corrupt copy stays in {@code to}; {@link #copyAndVerify(File, File, HashFunction,
+     * HashCode)} deletes it.
+     *
+     * @throws IOException if the copied bytes do not hash to {@code expected}
+     */
+    public static HashCode copyAndVerify(final ByteSource from, final ByteSink to, final HashFunction hashFunction,
+            final HashCode expected) throws IOException {
+        HashCode actual = copyAndHash(from, to, hashFunction);
+        if (!actual.equals(expected)) {
+            throw new IOException("copy of " + from + " hashes to " + actual + " instead of " + expected);
+        }
+        return actual;
+    }
+
+    /**
+     * Like {@link #copyAndVerify(ByteSource, ByteSink, HashFunction, HashCode)}, but deletes {@code to} again if the
+     * digest is not the {@code expected} one or the copy fails, so no corrupt copy is left behind.
+     *
+     * @throws IOException if the copied bytes do not hash to {@code expected}
+     * @throws IllegalArgumentException if {@code from} and {@code to} are the same file
+     */
+    public static HashCode copyAndVerify(final File from, final File to, final HashFunction hashFunction,
+            final HashCode expected) throws IOException {
+        checkArgument(!from.equals(to), "Source %s and destination %s must be different", from, to);
+        try {
+            return copyAndVerify(Files.asByteSource(from), Files.asByteSink(to), hashFunction, expected);
+        } catch (IOException e) {
+            if (to.exists() && !to.delete()) {
+                e.addSuppressed(new IOException("could not delete " + to));
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.github.floppywaste.io;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.io.ByteSink;
+
+
+/**
+ * How a {@link CsvWriter} separates fields and treats nulls, with the semantics of {@code Joiner}: a null field is an
+ * error unless nulls are skipped, separator and all, or written as a substitute.
+ *
+ * <pre>
+ * CsvWriter out = CsvFormat.on(", ").useForNull("_").newWriter(Files.asByteSink(file));
+ * </pre>
+ *
+ * Instances are immutable; the configuration methods return new ones.
+ */
+public final class CsvFormat {
+
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    // a field is written in pieces if needed, but a single char must fit
+    static final int MIN_BUFFER_SIZE = 64;
+
+    private final String separator;
+    private final boolean skipNulls;
+    private final String nullText;
+    private final String lineSeparator;
+    private final int bufferSize;
+
+    private CsvFormat(final String separator, final boolean skipNulls, final String nullText,
+            final String lineSeparator, final int bufferSize) {
+        this.separator = separator;
+        this.skipNulls = skipNulls;
+        this.nullText = nullText;
+        this.lineSeparator = lineSeparator;
+        this.bufferSize = bufferSize;
+    }
+
+    public static CsvFormat on(final String separator) {
+        return new CsvFormat(checkNotNull(separator), false, null, "\n", DEFAULT_BUFFER_SIZE);
+    }
+
+    public static CsvFormat on(final char separator) {
+        return on(String.valueOf(separator));
+    }
+
+    /**
+     * Leaves null fields out, together with their separator.
+     *
+     * @throws UnsupportedOperationException if nulls are already written as a substitute
+     */
+    public CsvFormat skipNulls() {
+        if (nullText != null) {
+            throw new UnsupportedOperationException("already specified useForNull");
+        }
+        return new CsvFormat(separator, true, null, lineSeparator, bufferSize);
+    }
+
+    /**
+     * Writes {@code nullText} for null fields.
+     *
+     * @throws UnsupportedOperationException if nulls are already skipped or substituted
+     */
+    public CsvFormat useForNull(final String nullText) {
+        checkNotNull(nullText);
+        if (skipNulls || this.nullText != null) {
+            throw new UnsupportedOperationException(skipNulls ? "already specified skipNulls"
+                    : "already specified useForNull");
+        }
+        return new CsvFormat(separator, false, nullText, lineSeparator, bufferSize);
+    }
+
+    /**
+     * Ends rows with {@code lineSeparator} instead of {@code "\n"}.
+     */
+    public CsvFormat withLineSeparator(final String lineSeparator) {
+        return new CsvFormat(separator, skipNulls, nullText, checkNotNull(lineSeparator), bufferSize);
+    }
+
+    public CsvFormat withBufferSize(final int bufferSize) {
+        checkArgument(bufferSize >= MIN_BUFFER_SIZE, "bufferSize must be at least %s: %s", MIN_BUFFER_SIZE,
+                bufferSize);
+        return new CsvFormat(separator, skipNulls, nullText, lineSeparator, bufferSize);
+    }
+
+    /**
+     * A writer into a stream of {@code sink}, which is opened right away and closed with the writer.
+     */
+    public CsvWriter newWriter(final ByteSink sink) throws IOException {
+        return new CsvWriter(this, sink.openStream(), null);
+    }
+
+    /**
+     * A writer into {@code channel}, which is closed with the writer.
+     */
+    public CsvWriter newWriter(final WritableByteChannel channel) {
+        return new CsvWriter(this, null, checkNotNull(channel));
+    }
+
+    String separator() {
+        return separator;
+    }
+
+    boolean skipsNulls() {
+        return skipNulls;
+    }
+
+    String nullText() {
+        return nullText;
+    }
+
+    String lineSeparator() {
+        return lineSeparator;
+    }
+
+    int bufferSize() {
+        return bufferSize;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("separator", separator).add("skipNulls", skipNulls)
+                .add("nullText", nullText).add("bufferSize", bufferSize).toString();
+    }
+}
@@ -0,0 +1,340 @@
+package com.github.floppywaste.io;
+
+import static com.google.common.base.Charsets.UTF_8;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import com.google.common.io.Closer;
+
+
+/**
+ * Writes rows of CSV fields as UTF-8 straight into one reusable buffer, which is handed to the stream or channel
+ * whenever it is full. {@code Joiner.on(", ").join(...)} builds a {@code String} per row that is then encoded and
+ * copied again; here strings are encoded char by char into the buffer, and ints, longs and doubles are formatted
+ * digit by digit without any intermediate {@code String}.
+ *
+ * <pre>
+ * CsvWriter out = CsvFormat.on(',').newWriter(Files.asByteSink(file));
+ * try {
+ *     for (Map.Entry&lt;String, DeviceStatistics&gt; device : statistics.entrySet()) {
+ *         out.field(device.getKey()).field(device.getValue().count()).field(device.getValue().mean()).endRow();
+ *     }
+ * } finally {
+ *     out.close();
+ * }
+ * </pre>
+ *
+ * Fields are written as they are, like {@code Joiner} does: nothing is quoted or escaped. Ints and longs come out as
+ * {@code String.valueOf} writes them, doubles as {@link #field(double)} describes. Not thread safe.
+ */
+public final class CsvWriter implements Closeable, Flushable {
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+    private static final double[] DOUBLE_POWERS_OF_TEN = new double[19];
+
+    static {
+        long power = 1;
+        for (int i = 0; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = power;
+            DOUBLE_POWERS_OF_TEN[i] = power;
+            power *= 10;
+        }
+    }
+
+    // integers up to 2^53 are exact doubles, so scaled / 10^decimals below is a single, correctly rounded division
+    private static final double EXACT_INTEGERS = 1L << 53;
+    // the range in which Double.toString does not switch to computerized scientific notation
+    private static final double MIN_PLAIN_DOUBLE = 1e-3;
+    private static final double MAX_PLAIN_DOUBLE = 1e7;
+    // the longest UTF-8 sequence and the longest long, sign included
+    private static final int MAX_CHAR_BYTES = 4;
+    private static final int MAX_LONG_BYTES = 20;
+
+    private final OutputStream out;
+    private final WritableByteChannel channel;
+    private final byte[] separator;
+    private final byte[] lineSeparator;
+    private final boolean skipNulls;
+    private final String nullText;
+
+    private final byte[] buffer;
+    private final ByteBuffer wrapped;
+    private int position;
+    private boolean rowStarted;
+    private long rows;
+
+    CsvWriter(final CsvFormat format, final OutputStream out, final WritableByteChannel channel) {
+        this.out = out;
+        this.channel = channel;
+        this.separator = format.separator().getBytes(UTF_8);
+        this.lineSeparator = format.lineSeparator().getBytes(UTF_8);
+        this.skipNulls = format.skipsNulls();
+        this.nullText = format.nullText();
+        this.buffer = new byte[format.bufferSize()];
+        this.wrapped = ByteBuffer.wrap(buffer);
+    }
+
+    /**
+     * Writes {@code value}, or treats it as a null field as configured.
+     *
+     * @throws NullPointerException if {@code value} is null and nulls are neither skipped nor substituted
+     */
+    public CsvWriter field(final CharSequence value) throws IOException {
+        if (value == null) {
+            return nullField();
+        }
+        separate();
+        putChars(value);
+        return this;
+    }
+
+    public CsvWriter field(final int value) throws IOException {
+        return field((long) value);
+    }
+
+    public CsvWriter field(final long value) throws IOException {
+        separate();
+        putLong(value);
+        return this;
+    }
+
+    /**
+     * Writes {@code value} in the notation of {@link Double#toString(double)}. Values from 0.001 up to 10^7, the
+     * range in which that is plain decimal notation, are formatted without allocating, as the fewest decimals (at
+     * least one) that read back as the same double; that is what {@code Double.toString} writes since JDK 19, older
+     * ones sometimes add a digit. Other values are written by {@code Double.toString}.
+     */
+    public CsvWriter field(final double value) throws IOException {
+        separate();
+        putDouble(value);
+        return this;
+    }
+
+    /**
+     * Writes {@code value} with the matching overload for strings, ints, longs and doubles, and as its
+     * {@code toString()} otherwise.
+     *
+     * @throws NullPointerException if {@code value} is null and nulls are neither skipped nor substituted
+     */
+    public CsvWriter field(final Object value) throws IOException {
+        if (value == null) {
+            return nullField();
+        }
+        if (value instanceof CharSequence) {
+            return field((CharSequence) value);
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return field(((Number) value).longValue());
+        }
+        if (value instanceof Double) {
+            return field(((Double) value).doubleValue());
+        }
+        return field(value.toString());
+    }
+
+    /**
+     * Ends the current row, which may be empty.
+     */
+    public CsvWriter endRow() throws IOException {
+        putBytes(lineSeparator);
+        rowStarted = false;
+        rows++;
+        return this;
+    }
+
+    /**
+     * Writes {@code fields} as one row, like {@code Joiner.join(Object...)} plus a line separator.
+     */
+    public CsvWriter row(final Object... fields) throws IOException {
+        for (Object field : fields) {
+            field(field);
+        }
+        return endRow();
+    }
+
+    public CsvWriter row(final Iterable<?> fields) throws IOException {
+        for (Object field : fields) {
+            field(field);
+        }
+        return endRow();
+    }
+
+    /**
+     * The rows ended so far.
+     */
+    public long rows() {
+        return rows;
+    }
+
+    /**
+     * Writes out the buffered bytes, including those of an unfinished row.
+     */
+    @Override
+    public void flush() throws IOException {
+        drain();
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    /**
+     * Flushes and closes the stream or channel. An unfinished row is written as it is, without a line separator.
+     */
+    @Override
+    public void close() throws IOException {
+        Closer closer = Closer.create();
+        try {
+            closer.register(out != null ? out : channel);
+            drain();
+        } catch (Throwable e) {
+            throw closer.rethrow(e);
+        } finally {
+            closer.close();
+        }
+    }
+
+    private CsvWriter nullField() throws IOException {
+        if (skipNulls) {
+            return this;
+        }
+        if (nullText == null) {
+            throw new NullPointerException("null field and neither skipNulls nor useForNull were specified");
+        }
+        return field(nullText);
+    }
+
+    private void separate() throws IOException {
+        if (rowStarted) {
+            putBytes(separator);
+        } else {
+            rowStarted = true;
+        }
+    }
+
+    private void putBytes(final byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (position == buffer.length) {
+                drain();
+            }
+            int length = Math.min(bytes.length - offset, buffer.length - position);
+            System.arraycopy(bytes, offset, buffer, position, length);
+            position += length;
+            offset += length;
+        }
+    }
+
+    /*
+     * UTF-8 by hand: ASCII is a single store per char, and an unpaired surrogate becomes '?' as in String.getBytes.
+     */
+    private void putChars(final CharSequence chars) throws IOException {
+        int length = chars.length();
+        for (int i = 0; i < length; i++) {
+            if (buffer.length - position < MAX_CHAR_BYTES) {
+                drain();
+            }
+            char c = chars.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | c >> 6);
+                buffer[position++] = (byte) (0x80 | c & 0x3F);
+            } else if (!Character.isSurrogate(c)) {
+                buffer[position++] = (byte) (0xE0 | c >> 12);
+                buffer[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buffer[position++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, chars.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | codePoint >> 18);
+                buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                buffer[position++] = (byte) (0x80 | codePoint & 0x3F);
+            } else {
+                buffer[position++] = '?';
+            }
+        }
+    }
+
+    private void putLong(final long value) throws IOException {
+        if (buffer.length - position < MAX_LONG_BYTES) {
+            drain();
+        }
+        // work with the negative value so that Long.MIN_VALUE does not overflow
+        long negative = value;
+        if (value < 0) {
+            buffer[position++] = '-';
+        } else {
+            negative = -value;
+        }
+        int digits = 1;
+        for (long rest = negative / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        putDigits(negative, digits);
+    }
+
+    private void putDouble(final double value) throws IOException {
+        double magnitude = Math.abs(value);
+        if (magnitude == 0) {
+            putFixed(Double.doubleToRawLongBits(value) < 0, 0, 1);
+            return;
+        }
+        if (magnitude >= MIN_PLAIN_DOUBLE && magnitude < MAX_PLAIN_DOUBLE) {
+            for (int decimals = 1; decimals < POWERS_OF_TEN.length; decimals++) {
+                double scaled = Math.rint(magnitude * DOUBLE_POWERS_OF_TEN[decimals]);
+                if (scaled >= EXACT_INTEGERS) {
+                    break;
+                }
+                if (scaled / DOUBLE_POWERS_OF_TEN[decimals] == magnitude) {
+                    putFixed(value < 0, (long) scaled, decimals);
+                    return;
+                }
+            }
+        }
+        // scientific notation, NaN, infinities and the rare values that need all 17 digits
+        putChars(Double.toString(value));
+    }
+
+    private void putFixed(final boolean negative, final long scaled, final int decimals) throws IOException {
+        if (buffer.length - position < MAX_LONG_BYTES + decimals + 1) {
+            drain();
+        }
+        if (negative) {
+            buffer[position++] = '-';
+        }
+        putLong(scaled / POWERS_OF_TEN[decimals]);
+        buffer[position++] = '.';
+        putDigits(-(scaled % POWERS_OF_TEN[decimals]), decimals);
+    }
+
+    /*
+     * The lowest digits of -negative, zero padded to exactly digits places.
+     */
+    private void putDigits(final long negative, final int digits) {
+        long rest = negative;
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' - rest % 10);
+            rest /= 10;
+        }
+        position += digits;
+    }
+
+    private void drain() throws IOException {
+        if (out != null) {
+            out.write(buffer, 0, position);
+        } else {
+            wrapped.clear();
+            wrapped.limit(position);
+            while (wrapped.hasRemaining()) {
+                channel.write(wrapped);
+            }
+        }
+        position = 0;
+    }
+}
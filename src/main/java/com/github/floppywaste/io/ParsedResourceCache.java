@@ -0,0 +1,269 @@
+package com.github.floppywaste.io;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.Weigher;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closer;
+import com.google.common.io.Resources;
+
+
+/**
+ * Parses each resource once and hands out the parsed result until the resource changes, instead of re-reading and
+ * re-parsing the same reference file for every request as {@code Guava05_IO} does. Results are weighed, e.g. by
+ * their estimated size in bytes, and the least recently used are evicted once the total weight exceeds the budget.
+ * As in any Guava cache, the budget is split among the segments of the cache, so a single result should weigh well
+ * below it.
+ *
+ * <pre>
+ * ParsedResourceCache&lt;Map&lt;String, Double&gt;&gt; cache =
+ *         ParsedResourceCache.create(parser, weigher, 64 &lt;&lt; 20);
+ * Map&lt;String, Double&gt; averages = cache.get(Resources.getResource("test.csv"));
+ * </pre>
+ *
+ * Every {@link #get} checks that the cached result is still current: a resource whose modification time and size
+ * are unchanged is taken as is, one whose size changed is parsed again, and when the modification time changed
+ * with the size, or the URL reports neither, a CRC32C of the content decides. The CRC is computed while the content
+ * is parsed, so loading reads every resource exactly once. Concurrent misses of the same URL wait for a single
+ * load.
+ */
+public final class ParsedResourceCache<T> {
+
+    /**
+     * Turns the content of a resource into the cached result. The stream is closed by the cache.
+     */
+    public interface Parser<T> {
+
+        T parse(InputStream in) throws IOException;
+    }
+
+    private static final HashFunction CONTENT_HASH = Hashing.crc32c();
+
+    private final LoadingCache<URL, Entry<T>> cache;
+    private final AtomicLong contentChecks = new AtomicLong();
+    private final AtomicLong staleEntries = new AtomicLong();
+
+    private ParsedResourceCache(final Parser<? extends T> parser, final Weigher<? super URL, ? super T> weigher,
+            final long maxWeight) {
+        cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher(new Weigher<URL, Entry<T>>() {
+
+                    @Override
+                    public int weigh(final URL key, final Entry<T> value) {
+                        return weigher.weigh(key, value.parsed);
+                    }
+                })
+                .recordStats()
+                .build(new CacheLoader<URL, Entry<T>>() {
+
+                    @Override
+                    public Entry<T> load(final URL key) throws IOException {
+                        return ParsedResourceCache.load(key, parser);
+                    }
+                });
+    }
+
+    /**
+     * @param maxWeight the budget for the sum of the weights of all cached results
+     */
+    public static <T> ParsedResourceCache<T> create(final Parser<? extends T> parser,
+            final Weigher<? super URL, ? super T> weigher, final long maxWeight) {
+        checkNotNull(parser);
+        checkNotNull(weigher);
+        checkArgument(maxWeight >= 0, "maxWeight must not be negative: %s", maxWeight);
+        return new ParsedResourceCache<T>(parser, weigher, maxWeight);
+    }
+
+    /**
+     * The parsed content of {@code url}, loaded and parsed if it is not cached or has changed since.
+     */
+    public T get(final URL url) throws IOException {
+        try {
+            Entry<T> entry = cache.get(url);
+            if (entry.fresh) {
+                // just loaded, there is nothing to validate yet
+                entry.fresh = false;
+            } else if (!isCurrent(url, entry)) {
+                staleEntries.incrementAndGet();
+                // only drop the stale entry, a concurrent caller may have replaced it already
+                cache.asMap().remove(url, entry);
+                entry = cache.get(url);
+            }
+            return entry.parsed;
+        } catch (ExecutionException e) {
+            Throwables.propagateIfPossible(e.getCause(), IOException.class);
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    public void invalidate(final URL url) {
+        cache.invalidate(url);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Hits, misses, loads, load times and evictions. A stale entry counts as a hit followed by a miss.
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * How often the content hash had to decide whether an entry is current.
+     */
+    public long contentChecks() {
+        return contentChecks.get();
+    }
+
+    /**
+     * How often a cached result was found out of date and parsed again.
+     */
+    public long staleEntries() {
+        return staleEntries.get();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    private boolean isCurrent(final URL url, final Entry<T> entry) throws IOException {
+        Version now = Version.of(url);
+        if (now.isKnown() && now.equals(entry.version)) {
+            return true;
+        }
+        if (now.size >= 0 && entry.version.size >= 0 && now.size != entry.version.size) {
+            return false;
+        }
+        contentChecks.incrementAndGet();
+        if (!Resources.asByteSource(url).hash(CONTENT_HASH).equals(entry.contentHash)) {
+            return false;
+        }
+        // only touched, later gets can rely on the new modification time and size again
+        entry.version = now;
+        return true;
+    }
+
+    private static <T> Entry<T> load(final URL url, final Parser<? extends T> parser) throws IOException {
+        // the version is taken first, so a change during the parse makes the entry stale rather than wrongly current
+        Version version = Version.of(url);
+        Closer closer = Closer.create();
+        try {
+            HashingInputStream in = closer.register(new HashingInputStream(CONTENT_HASH,
+                    Resources.asByteSource(url).openBufferedStream()));
+            T parsed = parser.parse(in);
+            // the parser may stop early, the hash has to cover all of the content
+            ByteStreams.copy(in, ByteStreams.nullOutputStream());
+            return new Entry<T>(checkNotNull(parsed, "parsed %s to null", url), version, in.hash());
+        } catch (Throwable e) {
+            throw closer.rethrow(e);
+        } finally {
+            closer.close();
+        }
+    }
+
+    private static final class Entry<T> {
+        final T parsed;
+        volatile Version version;
+        final HashCode contentHash;
+        volatile boolean fresh = true;
+
+        Entry(final T parsed, final Version version, final HashCode contentHash) {
+            this.parsed = parsed;
+            this.version = version;
+            this.contentHash = contentHash;
+        }
+    }
+
+    /*
+     * Modification time and size as the URL reports them; 0 and -1 mean unknown, as in URLConnection. Files are
+     * asked directly, which costs a stat and no open; other URLs through a connection that is closed again, with a
+     * HEAD request over HTTP.
+     */
+    private static final class Version {
+        final long lastModified;
+        final long size;
+
+        Version(final long lastModified, final long size) {
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+
+        static Version of(final URL url) throws IOException {
+            if ("file".equals(url.getProtocol())) {
+                try {
+                    File file = new File(url.toURI());
+                    return file.exists() ? new Version(file.lastModified(), file.length()) : new Version(0, -1);
+                } catch (URISyntaxException | IllegalArgumentException e) {
+                    // not a plain path, ask the connection like for any other URL
+                }
+            }
+            URLConnection connection = url.openConnection();
+            if (connection instanceof HttpURLConnection) {
+                // the headers are all that is needed, the body is only fetched by a load
+                ((HttpURLConnection) connection).setRequestMethod("HEAD");
+            }
+            try {
+                return new Version(connection.getLastModified(), connection.getContentLengthLong());
+            } finally {
+                close(connection);
+            }
+        }
+
+        /*
+         * Asking for the headers connects, which opens a socket, a JarFile or a plain file stream.
+         */
+        private static void close(final URLConnection connection) {
+            if (connection instanceof HttpURLConnection) {
+                ((HttpURLConnection) connection).disconnect();
+                return;
+            }
+            try {
+                connection.getInputStream().close();
+            } catch (IOException e) {
+                // nothing was opened, e.g. the resource does not exist
+            }
+        }
+
+        boolean isKnown() {
+            return lastModified != 0 && size >= 0;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Version)) {
+                return false;
+            }
+            Version other = (Version) obj;
+            return lastModified == other.lastModified && size == other.size;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (lastModified ^ size);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.github.floppywaste.io;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.CharSource;
+import com.google.common.io.Closer;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+
+/**
+ * The concatenation of several {@link CharSource}s, like {@link CharSource#concat(Iterable)}, but while the current
+ * segment is consumed the next ones are already opened and decoded on background threads. Every segment decodes into
+ * a bounded queue of char blocks, so a slow consumer stops the readers ahead of it instead of buffering whole
+ * segments. The chars come out exactly as {@code CharSource.concat} would return them. Closing the reader early
+ * cancels and closes every segment that was started.
+ */
+public final class PrefetchingCharSource extends CharSource {
+
+    static final int BLOCK_SIZE = 8 * 1024;
+    static final int BLOCKS_PER_SEGMENT = 16;
+
+    private static final ExecutorService DEFAULT_EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("prefetching-char-source-%d").build());
+
+    // marks the end of a segment in its queue
+    private static final Object END = new Object();
+
+    private final ImmutableList<CharSource> sources;
+    private final int prefetchSegments;
+    private final ExecutorService executor;
+    private final int blockSize;
+    private final int blocksPerSegment;
+
+    PrefetchingCharSource(final Iterable<? extends CharSource> sources, final int prefetchSegments,
+            final ExecutorService executor, final int blockSize, final int blocksPerSegment) {
+        checkArgument(prefetchSegments >= 0, "prefetchSegments must not be negative: %s", prefetchSegments);
+        checkArgument(blockSize > 0 && blocksPerSegment > 0, "buffers must not be empty");
+        this.sources = ImmutableList.copyOf(sources);
+        this.prefetchSegments = prefetchSegments;
+        this.executor = checkNotNull(executor);
+        this.blockSize = blockSize;
+        this.blocksPerSegment = blocksPerSegment;
+    }
+
+    /**
+     * Reads up to {@code prefetchSegments} segments ahead of the current one on a shared pool of daemon threads.
+     */
+    public static PrefetchingCharSource concat(final Iterable<? extends CharSource> sources,
+            final int prefetchSegments) {
+        return concat(sources, prefetchSegments, DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * Reads up to {@code prefetchSegments} segments ahead on {@code executor}, which should run tasks in submission
+     * order and have at least {@code prefetchSegments + 1} threads to keep all of them busy.
+     */
+    public static PrefetchingCharSource concat(final Iterable<? extends CharSource> sources,
+            final int prefetchSegments, final ExecutorService executor) {
+        return new PrefetchingCharSource(sources, prefetchSegments, executor, BLOCK_SIZE, BLOCKS_PER_SEGMENT);
+    }
+
+    @Override
+    public Reader openStream() throws IOException {
+        return new PrefetchingReader();
+    }
+
+    @Override
+    public String toString() {
+        return "PrefetchingCharSource.concat(" + sources + ", " + prefetchSegments + ")";
+    }
+
+    private final class PrefetchingReader extends Reader {
+
+        private final Iterator<CharSource> remaining = sources.iterator();
+        private final Deque<Segment> window = new ArrayDeque<Segment>();
+        private char[] block = new char[0];
+        private int position;
+        private boolean closed;
+
+        PrefetchingReader() {
+            fillWindow();
+        }
+
+        @Override
+        public int read(final char[] chars, final int offset, final int length) throws IOException {
+            if (closed) {
+                throw new IOException("reader is closed");
+            }
+            if (length == 0) {
+                return 0;
+            }
+            if (position == block.length && !nextBlock()) {
+                return -1;
+            }
+            int count = Math.min(length, block.length - position);
+            System.arraycopy(block, position, chars, offset, count);
+            position += count;
+            return count;
+        }
+
+        private boolean nextBlock() throws IOException {
+            while (!window.isEmpty()) {
+                Object next = window.peek().take();
+                if (next == END) {
+                    window.poll();
+                    fillWindow();
+                } else if (next instanceof Throwable) {
+                    Throwables.propagateIfInstanceOf((Throwable) next, IOException.class);
+                    throw Throwables.propagate((Throwable) next);
+                } else {
+                    block = (char[]) next;
+                    position = 0;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void fillWindow() {
+            while (window.size() <= prefetchSegments && remaining.hasNext()) {
+                Segment segment = new Segment(remaining.next());
+                segment.future = executor.submit(segment);
+                window.add(segment);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                for (Segment segment : window) {
+                    segment.cancel();
+                }
+                window.clear();
+            }
+        }
+    }
+
+    /**
+     * Decodes one source into blocks; runs on the executor.
+     */
+    private final class Segment implements Runnable {
+
+        private final CharSource source;
+        private final BlockingQueue<Object> blocks = new ArrayBlockingQueue<Object>(blocksPerSegment);
+        private volatile boolean cancelled;
+        private volatile boolean started;
+        // END or the failure that could not be queued because the producer was interrupted
+        private volatile Object terminal;
+        private volatile Future<?> future;
+
+        Segment(final CharSource source) {
+            this.source = source;
+        }
+
+        @Override
+        public void run() {
+            started = true;
+            try {
+                Closer closer = Closer.create();
+                try {
+                    Reader reader = closer.register(source.openStream());
+                    while (!cancelled) {
+                        char[] chars = new char[blockSize];
+                        int read = reader.read(chars);
+                        if (read == -1) {
+                            break;
+                        }
+                        if (!put(read == chars.length ? chars : Arrays.copyOf(chars, read))) {
+                            return;
+                        }
+                    }
+                } catch (Throwable e) {
+                    throw closer.rethrow(e);
+                } finally {
+                    closer.close();
+                }
+                // only after closing, so that a segment the consumer has finished is really done
+                put(END);
+            } catch (Throwable e) {
+                put(e);
+            }
+        }
+
+        /*
+         * Blocks while the queue is full, which is the backpressure on this segment, but gives up once the consumer is
+         * gone. An interrupt that does not come from the consumer, e.g. a shutdownNow of the executor, ends the
+         * segment: a block that cannot be queued becomes an InterruptedIOException, and END or a failure is kept as
+         * the terminal element, so that take() never waits for an element that will not come.
+         */
+        private boolean put(final Object element) {
+            try {
+                while (!cancelled) {
+                    if (blocks.offer(element, 100, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                }
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (cancelled || blocks.offer(element)) {
+                    return !cancelled;
+                }
+                terminal = element instanceof char[] ? new InterruptedIOException("interrupted while reading "
+                        + source) : element;
+                return false;
+            }
+        }
+
+        /*
+         * Waits for the next element, but looks at the producer whenever the queue stays empty for a while: a task
+         * that was cancelled from outside, or that was dropped by an executor shut down before it ran, never queues
+         * another one.
+         */
+        Object take() throws IOException {
+            try {
+                while (true) {
+                    Object next = blocks.poll(100, TimeUnit.MILLISECONDS);
+                    if (next != null) {
+                        return next;
+                    }
+                    if (terminal != null) {
+                        return terminal;
+                    }
+                    if (future.isDone() || !started && executor.isTerminated()) {
+                        // the producer may have queued its last element just before it finished
+                        next = blocks.poll();
+                        if (next != null) {
+                            return next;
+                        }
+                        return terminal != null ? terminal : new IOException("reading " + source
+                                + " stopped before the end, the executor may have been shut down");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for " + source);
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            blocks.clear();
+            Future<?> started = future;
+            if (started != null) {
+                started.cancel(true);
+            }
+        }
+    }
+}
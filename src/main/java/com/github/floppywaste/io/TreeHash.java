@@ -0,0 +1,113 @@
+package com.github.floppywaste.io;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.hash.HashCode;
+import com.google.common.io.CharSink;
+import com.google.common.io.CharSource;
+import com.google.common.io.Closer;
+
+
+/**
+ * The result of {@link TreeHashing}: the hashes of the fixed-size chunks of a source (the manifest) and the root hash
+ * combined from them. The manifest is written as text next to the data, one line of
+ * {@code chunkSize size root} followed by one chunk hash per line.
+ */
+public final class TreeHash {
+
+    private final int chunkSize;
+    private final long size;
+    private final HashCode root;
+    private final ImmutableList<HashCode> chunkHashes;
+
+    TreeHash(final int chunkSize, final long size, final HashCode root, final List<HashCode> chunkHashes) {
+        checkArgument(chunkHashes.size() == chunkCount(size, chunkSize), "%s chunk hashes for %s bytes",
+                chunkHashes.size(), size);
+        this.chunkSize = chunkSize;
+        this.size = size;
+        this.root = root;
+        this.chunkHashes = ImmutableList.copyOf(chunkHashes);
+    }
+
+    static int chunkCount(final long size, final int chunkSize) {
+        long count = (size + chunkSize - 1) / chunkSize;
+        checkArgument(count <= Integer.MAX_VALUE, "too many chunks of %s bytes: %s", chunkSize, count);
+        return (int) count;
+    }
+
+    public int chunkSize() {
+        return chunkSize;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public HashCode root() {
+        return root;
+    }
+
+    public ImmutableList<HashCode> chunkHashes() {
+        return chunkHashes;
+    }
+
+    public void writeTo(final CharSink sink) throws IOException {
+        Closer closer = Closer.create();
+        try {
+            Writer out = closer.register(sink.openBufferedStream());
+            out.write(Joiner.on(' ').join(chunkSize, size, root));
+            out.write('\n');
+            for (HashCode chunkHash : chunkHashes) {
+                out.write(chunkHash.toString());
+                out.write('\n');
+            }
+        } catch (Throwable e) {
+            throw closer.rethrow(e);
+        } finally {
+            closer.close();
+        }
+    }
+
+    public static TreeHash readFrom(final CharSource source) throws IOException {
+        List<String> lines = source.readLines();
+        checkArgument(!lines.isEmpty(), "empty manifest");
+        List<String> header = Splitter.on(' ').splitToList(lines.get(0));
+        checkArgument(header.size() == 3, "invalid manifest header: %s", lines.get(0));
+        ImmutableList.Builder<HashCode> chunkHashes = ImmutableList.builder();
+        for (String line : Iterables.skip(lines, 1)) {
+            chunkHashes.add(HashCode.fromString(line));
+        }
+        return new TreeHash(Integer.parseInt(header.get(0)), Long.parseLong(header.get(1)),
+                HashCode.fromString(header.get(2)), chunkHashes.build());
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (!(obj instanceof TreeHash)) {
+            return false;
+        }
+        TreeHash other = (TreeHash) obj;
+        return chunkSize == other.chunkSize && size == other.size && root.equals(other.root)
+                && chunkHashes.equals(other.chunkHashes);
+    }
+
+    @Override
+    public int hashCode() {
+        return root.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("root", root).add("size", size).add("chunkSize", chunkSize)
+                .add("chunks", chunkHashes.size()).toString();
+    }
+}
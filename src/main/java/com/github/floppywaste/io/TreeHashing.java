@@ -0,0 +1,135 @@
+package com.github.floppywaste.io;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeSet;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.io.ByteSource;
+import com.google.common.util.concurrent.Futures;
+
+
+/**
+ * Hashes a {@link ByteSource} as a tree of height two: the fixed-size chunks are hashed in parallel and the root
+ * hash is computed from the size, the chunk size and the chunk hashes. The root is therefore not the plain hash of
+ * the bytes, but it changes whenever any byte does, and the chunk hashes of the resulting {@link TreeHash} let a
+ * later check rehash only the chunks that may have changed.
+ */
+public final class TreeHashing {
+
+    static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private TreeHashing() {
+    }
+
+    public static TreeHash hash(final ByteSource source, final HashFunction function) throws IOException {
+        return hash(source, function, DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool());
+    }
+
+    public static TreeHash hash(final ByteSource source, final HashFunction function, final int chunkSize,
+            final ExecutorService executor) throws IOException {
+        checkArgument(chunkSize > 0, "chunkSize must be positive: %s", chunkSize);
+        long size = source.size();
+        int chunkCount = TreeHash.chunkCount(size, chunkSize);
+        List<Future<HashCode>> chunkHashes = Lists.newArrayListWithCapacity(chunkCount);
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            chunkHashes.add(executor.submit(hashChunk(source, function, chunkSize, chunk)));
+        }
+        return treeHash(function, chunkSize, size, getAll(chunkHashes));
+    }
+
+    /**
+     * Brings {@code previous} up to date after the bytes in {@code changedRanges} were modified, rehashing only the
+     * chunks that overlap those ranges or lie behind the previous end of the source. The chunk size is taken from
+     * {@code previous}, which must have been computed with the same {@code function}.
+     */
+    public static TreeHash rehash(final ByteSource source, final HashFunction function, final TreeHash previous,
+            final RangeSet<Long> changedRanges, final ExecutorService executor) throws IOException {
+        int chunkSize = previous.chunkSize();
+        long size = source.size();
+        int chunkCount = TreeHash.chunkCount(size, chunkSize);
+        List<Future<HashCode>> chunkHashes = Lists.newArrayListWithCapacity(chunkCount);
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            long start = (long) chunk * chunkSize;
+            long end = Math.min(start + chunkSize, size);
+            // a chunk can be reused if it had the same extent before and none of its bytes changed
+            boolean sameExtent = start < previous.size() && Math.min(start + chunkSize, previous.size()) == end;
+            if (sameExtent && changedRanges.subRangeSet(Range.closedOpen(start, end)).isEmpty()) {
+                chunkHashes.add(Futures.immediateFuture(previous.chunkHashes().get(chunk)));
+            } else {
+                chunkHashes.add(executor.submit(hashChunk(source, function, chunkSize, chunk)));
+            }
+        }
+        return treeHash(function, chunkSize, size, getAll(chunkHashes));
+    }
+
+    /**
+     * Rehashes every chunk in parallel and returns the indexes of the chunks that no longer match {@code expected}.
+     * A source that grew or shrank reports its changed tail chunks as well.
+     */
+    public static List<Integer> changedChunks(final ByteSource source, final HashFunction function,
+            final TreeHash expected, final ExecutorService executor) throws IOException {
+        TreeHash actual = hash(source, function, expected.chunkSize(), executor);
+        List<Integer> changed = Lists.newArrayList();
+        int chunks = Math.max(actual.chunkHashes().size(), expected.chunkHashes().size());
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            if (chunk >= actual.chunkHashes().size() || chunk >= expected.chunkHashes().size()
+                    || !actual.chunkHashes().get(chunk).equals(expected.chunkHashes().get(chunk))) {
+                changed.add(chunk);
+            }
+        }
+        return changed;
+    }
+
+    private static Callable<HashCode> hashChunk(final ByteSource source, final HashFunction function,
+            final int chunkSize, final int chunk) {
+        return new Callable<HashCode>() {
+
+            @Override
+            public HashCode call() throws IOException {
+                return source.slice((long) chunk * chunkSize, chunkSize).hash(function);
+            }
+        };
+    }
+
+    private static TreeHash treeHash(final HashFunction function, final int chunkSize, final long size,
+            final List<HashCode> chunkHashes) {
+        Hasher root = function.newHasher().putLong(size).putInt(chunkSize);
+        for (HashCode chunkHash : chunkHashes) {
+            root.putBytes(chunkHash.asBytes());
+        }
+        return new TreeHash(chunkSize, size, root.hash(), chunkHashes);
+    }
+
+    private static List<HashCode> getAll(final List<Future<HashCode>> futures) throws IOException {
+        List<HashCode> result = Lists.newArrayListWithCapacity(futures.size());
+        try {
+            for (Future<HashCode> future : futures) {
+                result.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while hashing", e);
+        } catch (ExecutionException e) {
+            Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+            throw Throwables.propagate(e.getCause());
+        } finally {
+            for (Future<HashCode> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return result;
+    }
+}
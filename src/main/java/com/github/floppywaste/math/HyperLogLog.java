@@ -0,0 +1,173 @@
+package com.github.floppywaste.math;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+
+/**
+ * Counts distinct elements approximately in a fixed {@code 2^precision} bytes, however many elements are added. Each
+ * element is hashed to 64 bits; the first {@code precision} bits pick a register, which keeps the longest run of
+ * leading zeros seen in the remaining bits.
+ *
+ * <p>The standard error of {@link #cardinality()} is {@code 1.04 / sqrt(2^precision)}: 1.6% for the default
+ * precision 12 (4KB), 0.81% for 14 (16KB) and 0.41% for 16 (64KB). Estimates are within three standard errors 99.7%
+ * of the time. Small cardinalities, up to about {@code 2.5 * 2^precision}, are counted almost exactly by linear
+ * counting of the empty registers.
+ *
+ * <p>Sketches of the same precision {@linkplain #merge(HyperLogLog) merge} into the sketch of the union of their
+ * elements, so partial results of several files or threads can be combined. {@link #writeTo(OutputStream)} and
+ * {@link #readFrom(InputStream)} carry them between processes, like {@code BloomFilter}.
+ */
+public final class HyperLogLog {
+
+    public static final int DEFAULT_PRECISION = 12;
+    static final int MIN_PRECISION = 4;
+    static final int MAX_PRECISION = 18;
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final int precision;
+    private final byte[] registers;
+
+    private HyperLogLog(final int precision, final byte[] registers) {
+        this.precision = precision;
+        this.registers = registers;
+    }
+
+    public static HyperLogLog create() {
+        return create(DEFAULT_PRECISION);
+    }
+
+    public static HyperLogLog create(final int precision) {
+        checkArgument(precision >= MIN_PRECISION && precision <= MAX_PRECISION,
+                "precision must be between %s and %s: %s", MIN_PRECISION, MAX_PRECISION, precision);
+        return new HyperLogLog(precision, new byte[1 << precision]);
+    }
+
+    /**
+     * The hash function for elements: the first 64 bits of murmur3_128 of their UTF-16 chars.
+     */
+    public static HashFunction hashFunction() {
+        return HASH;
+    }
+
+    public void add(final CharSequence element) {
+        addHash(HASH.hashUnencodedChars(element).asLong());
+    }
+
+    /**
+     * Adds an element by its 64 bit hash, which must be well mixed, e.g. from {@link #hashFunction()}.
+     */
+    public void addHash(final long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // the sentinel bit bounds the run of zeros when all remaining bits are zero
+        long remaining = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    public long cardinality() {
+        int m = registers.length;
+        double sum = 0;
+        int empty = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                empty++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && empty > 0) {
+            estimate = m * Math.log((double) m / empty);
+        }
+        return Math.round(estimate);
+    }
+
+    private static double alpha(final int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    public int precision() {
+        return precision;
+    }
+
+    /**
+     * Adds the elements of {@code other}, which must have the same precision.
+     */
+    public void merge(final HyperLogLog other) {
+        checkArgument(other.precision == precision, "cannot merge precision %s into %s", other.precision,
+                precision);
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public HyperLogLog copy() {
+        return new HyperLogLog(precision, registers.clone());
+    }
+
+    /**
+     * Writes the precision and the registers; the stream is not closed.
+     */
+    public void writeTo(final OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeByte(precision);
+        data.write(registers);
+        data.flush();
+    }
+
+    public static HyperLogLog readFrom(final InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(checkNotNull(in));
+        int precision = data.readByte();
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IOException("invalid precision " + precision);
+        }
+        byte[] registers = new byte[1 << precision];
+        data.readFully(registers);
+        return new HyperLogLog(precision, registers);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (!(obj instanceof HyperLogLog)) {
+            return false;
+        }
+        HyperLogLog other = (HyperLogLog) obj;
+        return precision == other.precision && Arrays.equals(registers, other.registers);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(registers);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("precision", precision).add("cardinality", cardinality())
+                .toString();
+    }
+}
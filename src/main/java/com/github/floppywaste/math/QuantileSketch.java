@@ -0,0 +1,313 @@
+package com.github.floppywaste.math;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import com.google.common.base.MoreObjects;
+
+
+/**
+ * Approximate quantiles (p50, p95, p99, ...) of a stream of values in bounded memory, as a KLL sketch (Karnin, Lang,
+ * Liberty: "Optimal Quantile Approximation in Streams"). Values are kept in levels; an item on level {@code h} stands
+ * for {@code 2^h} values. When the sketch is full, the lowest full level is sorted and every other item, starting at
+ * a random offset, moves up one level while the rest are dropped. Level capacities shrink by 2/3 per level below the
+ * top, so the sketch holds about {@code 3k} values plus a few per level, i.e. {@code O(k + log(n / k))}.
+ *
+ * <p>For {@code k = 200} (the default, about 5KB) the rank of the value returned for a quantile {@code q} is within
+ * {@code q ± 1.65%} with 99% probability; the error shrinks proportionally to {@code 1 / k}. Minimum and maximum are
+ * exact, and sketches with the same {@code k} {@linkplain #merge(QuantileSketch) merge} with the same error bound as
+ * if all values had been added to one sketch.
+ */
+public final class QuantileSketch {
+
+    public static final int DEFAULT_K = 200;
+    public static final int MIN_K = 8;
+    private static final double CAPACITY_DECAY = 2.0 / 3.0;
+    private static final int MIN_LEVEL_CAPACITY = 2;
+
+    private final int k;
+    private final Random random;
+    private long count;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    // items[h][0, sizes[h]) are the items of level h
+    private double[][] items;
+    private int[] sizes;
+    private int levels;
+
+    private QuantileSketch(final int k, final long seed) {
+        this.k = k;
+        this.random = new Random(seed);
+        this.items = new double[][] { new double[k] };
+        this.sizes = new int[1];
+        this.levels = 1;
+    }
+
+    public static QuantileSketch create() {
+        return create(DEFAULT_K);
+    }
+
+    public static QuantileSketch create(final int k) {
+        checkArgument(k >= MIN_K, "k must be at least %s: %s", MIN_K, k);
+        return new QuantileSketch(k, System.nanoTime());
+    }
+
+    /**
+     * A sketch that compacts deterministically, for reproducible results.
+     */
+    static QuantileSketch create(final int k, final long seed) {
+        return new QuantileSketch(k, seed);
+    }
+
+    public void add(final double value) {
+        checkArgument(!Double.isNaN(value), "NaN");
+        if (count == 0) {
+            min = value;
+            max = value;
+        } else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        count++;
+        if (sizes[0] == items[0].length) {
+            items[0] = Arrays.copyOf(items[0], items[0].length * 2);
+        }
+        items[0][sizes[0]++] = value;
+        compress();
+    }
+
+    /**
+     * Adds the values of {@code other}, which must have the same {@code k}.
+     */
+    public void merge(final QuantileSketch other) {
+        checkArgument(other.k == k, "cannot merge k = %s into k = %s", other.k, k);
+        if (other.count == 0) {
+            return;
+        }
+        while (levels < other.levels) {
+            addLevel();
+        }
+        for (int h = 0; h < other.levels; h++) {
+            append(h, other.items[h], other.sizes[h]);
+        }
+        min = count == 0 ? other.min : Math.min(min, other.min);
+        max = count == 0 ? other.max : Math.max(max, other.max);
+        count += other.count;
+        compress();
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double min() {
+        checkState(count > 0, "no values");
+        return min;
+    }
+
+    public double max() {
+        checkState(count > 0, "no values");
+        return max;
+    }
+
+    /**
+     * The value at rank {@code q * count}, for {@code 0 <= q <= 1}; {@code 0} and {@code 1} return the exact minimum
+     * and maximum.
+     */
+    public double quantile(final double q) {
+        return quantiles(q)[0];
+    }
+
+    public double[] quantiles(final double... qs) {
+        checkState(count > 0, "no values");
+        for (double q : qs) {
+            checkArgument(q >= 0 && q <= 1, "quantile must be between 0 and 1: %s", q);
+        }
+        int retained = retained();
+        double[] values = new double[retained];
+        long[] weights = new long[retained];
+        sortedItems(values, weights);
+        double[] result = new double[qs.length];
+        for (int i = 0; i < qs.length; i++) {
+            if (qs[i] == 0) {
+                result[i] = min;
+            } else if (qs[i] == 1) {
+                result[i] = max;
+            } else {
+                result[i] = values[indexOfRank(weights, (long) Math.ceil(qs[i] * count))];
+            }
+        }
+        return result;
+    }
+
+    public int k() {
+        return k;
+    }
+
+    /**
+     * The number of values held, which is what bounds the memory.
+     */
+    public int retained() {
+        int retained = 0;
+        for (int h = 0; h < levels; h++) {
+            retained += sizes[h];
+        }
+        return retained;
+    }
+
+    /**
+     * Writes {@code k}, count, min, max and the levels; the stream is not closed.
+     */
+    public void writeTo(final OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(k);
+        data.writeLong(count);
+        data.writeDouble(min);
+        data.writeDouble(max);
+        data.writeInt(levels);
+        for (int h = 0; h < levels; h++) {
+            data.writeInt(sizes[h]);
+            for (int i = 0; i < sizes[h]; i++) {
+                data.writeDouble(items[h][i]);
+            }
+        }
+        data.flush();
+    }
+
+    public static QuantileSketch readFrom(final InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(checkNotNull(in));
+        int k = data.readInt();
+        if (k < MIN_K) {
+            throw new IOException("invalid k " + k);
+        }
+        QuantileSketch sketch = new QuantileSketch(k, System.nanoTime());
+        sketch.count = data.readLong();
+        sketch.min = data.readDouble();
+        sketch.max = data.readDouble();
+        int levels = data.readInt();
+        for (int h = 0; h < levels; h++) {
+            if (h > 0) {
+                sketch.addLevel();
+            }
+            int size = data.readInt();
+            double[] level = new double[size];
+            for (int i = 0; i < size; i++) {
+                level[i] = data.readDouble();
+            }
+            sketch.append(h, level, size);
+        }
+        return sketch;
+    }
+
+    @Override
+    public String toString() {
+        MoreObjects.ToStringHelper helper = MoreObjects.toStringHelper(this).add("k", k).add("count", count);
+        if (count > 0) {
+            double[] quantiles = quantiles(0.5, 0.95, 0.99);
+            helper.add("p50", quantiles[0]).add("p95", quantiles[1]).add("p99", quantiles[2]);
+        }
+        return helper.toString();
+    }
+
+    private int capacity(final int level) {
+        int depth = levels - 1 - level;
+        return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+    }
+
+    private void compress() {
+        while (true) {
+            int total = 0;
+            int full = -1;
+            for (int h = 0; h < levels; h++) {
+                int capacity = capacity(h);
+                total += capacity;
+                if (full < 0 && sizes[h] >= capacity) {
+                    full = h;
+                }
+            }
+            if (retained() <= total || full < 0) {
+                return;
+            }
+            compact(full);
+        }
+    }
+
+    /*
+     * Halves the level into the one above, keeping the odd one out so that the total weight stays exact.
+     */
+    private void compact(final int level) {
+        if (level == levels - 1) {
+            addLevel();
+        }
+        double[] source = items[level];
+        int size = sizes[level];
+        Arrays.sort(source, 0, size);
+        int leftover = size % 2;
+        int offset = random.nextBoolean() ? 1 : 0;
+        int promoted = (size - leftover) / 2;
+        double[] target = ensureCapacity(level + 1, promoted);
+        for (int i = 0; i < promoted; i++) {
+            target[sizes[level + 1]++] = source[leftover + 2 * i + offset];
+        }
+        sizes[level] = leftover;
+    }
+
+    private void append(final int level, final double[] values, final int size) {
+        double[] target = ensureCapacity(level, size);
+        System.arraycopy(values, 0, target, sizes[level], size);
+        sizes[level] += size;
+    }
+
+    private double[] ensureCapacity(final int level, final int additional) {
+        if (sizes[level] + additional > items[level].length) {
+            items[level] = Arrays.copyOf(items[level], Math.max(items[level].length * 2, sizes[level] + additional));
+        }
+        return items[level];
+    }
+
+    private void addLevel() {
+        items = Arrays.copyOf(items, levels + 1);
+        sizes = Arrays.copyOf(sizes, levels + 1);
+        items[levels] = new double[MIN_LEVEL_CAPACITY];
+        levels++;
+    }
+
+    /*
+     * Sorts every level on its own and merges them, weighting each item with 2^level; the weights are cumulative.
+     */
+    private void sortedItems(final double[] values, final long[] weights) {
+        double[][] sorted = new double[levels][];
+        int[] positions = new int[levels];
+        for (int h = 0; h < levels; h++) {
+            sorted[h] = Arrays.copyOf(items[h], sizes[h]);
+            Arrays.sort(sorted[h]);
+        }
+        long cumulative = 0;
+        for (int n = 0; n < values.length; n++) {
+            int next = -1;
+            for (int h = 0; h < levels; h++) {
+                if (positions[h] < sorted[h].length
+                        && (next < 0 || sorted[h][positions[h]] < sorted[next][positions[next]])) {
+                    next = h;
+                }
+            }
+            values[n] = sorted[next][positions[next]++];
+            cumulative += 1L << next;
+            weights[n] = cumulative;
+        }
+    }
+
+    private static int indexOfRank(final long[] cumulativeWeights, final long rank) {
+        int index = Arrays.binarySearch(cumulativeWeights, rank);
+        return index >= 0 ? index : Math.min(-index - 1, cumulativeWeights.length - 1);
+    }
+}
@@ -0,0 +1,41 @@
+package com.github.floppywaste.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.collect.Maps;
+
+
+/**
+ * The default {@link MetricsRegistry}: stages live in a concurrent map and are read by whoever holds the registry.
+ */
+public final class InMemoryMetricsRegistry implements MetricsRegistry {
+
+    private final ConcurrentMap<String, StageMetrics> stages = Maps.newConcurrentMap();
+
+    private InMemoryMetricsRegistry() {
+    }
+
+    public static InMemoryMetricsRegistry create() {
+        return new InMemoryMetricsRegistry();
+    }
+
+    @Override
+    public StageMetrics stage(final String name) {
+        StageMetrics stage = stages.get(name);
+        if (stage == null) {
+            StageMetrics created = new StageMetrics(name);
+            stage = stages.putIfAbsent(name, created);
+            if (stage == null) {
+                stage = created;
+            }
+        }
+        return stage;
+    }
+
+    @Override
+    public Map<String, StageMetrics> stages() {
+        return Collections.unmodifiableMap(stages);
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.floppywaste.metrics;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.Set;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.Sets;
+
+
+/**
+ * A {@link MetricsRegistry} that exports every stage of its delegate as an MXBean named
+ * {@code <domain>:type=Stage,name=<stage>} when the stage is first requested, so that JConsole, VisualVM or a JMX
+ * scraper can watch a running pipeline. {@link #close()} unregisters them again.
+ *
+ * <pre>
+ * MetricsRegistry metrics = JmxMetricsRegistry.wrap(InMemoryMetricsRegistry.create(),
+ *         ManagementFactory.getPlatformMBeanServer(), "sensors");
+ * </pre>
+ */
+public final class JmxMetricsRegistry implements MetricsRegistry, Closeable {
+
+    private final MetricsRegistry delegate;
+    private final MBeanServer server;
+    private final String domain;
+    private final Set<ObjectName> registered = Sets.newConcurrentHashSet();
+
+    private JmxMetricsRegistry(final MetricsRegistry delegate, final MBeanServer server, final String domain) {
+        this.delegate = checkNotNull(delegate);
+        this.server = checkNotNull(server);
+        this.domain = checkNotNull(domain);
+    }
+
+    public static JmxMetricsRegistry wrap(final MetricsRegistry delegate, final MBeanServer server,
+            final String domain) {
+        JmxMetricsRegistry registry = new JmxMetricsRegistry(delegate, server, domain);
+        for (StageMetrics stage : delegate.stages().values()) {
+            registry.export(stage);
+        }
+        return registry;
+    }
+
+    @Override
+    public StageMetrics stage(final String name) {
+        StageMetrics stage = delegate.stage(name);
+        export(stage);
+        return stage;
+    }
+
+    @Override
+    public Map<String, StageMetrics> stages() {
+        return delegate.stages();
+    }
+
+    public ObjectName objectName(final String stage) {
+        try {
+            return new ObjectName(domain + ":type=Stage,name=" + ObjectName.quote(stage));
+        } catch (JMException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private void export(final StageMetrics stage) {
+        ObjectName name = objectName(stage.name());
+        if (registered.add(name)) {
+            try {
+                server.registerMBean(stage, name);
+            } catch (JMException e) {
+                registered.remove(name);
+                throw Throwables.propagate(e);
+            }
+        }
+    }
+
+    /**
+     * Unregisters the MBeans of this registry; the metrics themselves stay in the delegate.
+     */
+    @Override
+    public void close() {
+        for (ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException e) {
+                // already gone
+            }
+            registered.remove(name);
+        }
+    }
+}
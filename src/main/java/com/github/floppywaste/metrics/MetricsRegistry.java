@@ -0,0 +1,22 @@
+package com.github.floppywaste.metrics;
+
+import java.util.Map;
+
+
+/**
+ * Hands out the {@link StageMetrics} of a stage by name, creating it on first use. {@link InMemoryMetricsRegistry}
+ * keeps them in a map, {@link JmxMetricsRegistry} additionally exports them as MBeans; other monitoring systems plug
+ * in by implementing this interface.
+ */
+public interface MetricsRegistry {
+
+    /**
+     * The metrics of the stage; the same instance for the same name.
+     */
+    StageMetrics stage(String name);
+
+    /**
+     * All stages created so far, by name.
+     */
+    Map<String, StageMetrics> stages();
+}
@@ -0,0 +1,94 @@
+package com.github.floppywaste.metrics;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.base.MoreObjects;
+
+
+/**
+ * What one stage of a pipeline did: how many items (lines, function calls, reads) it handled, how many bytes it saw,
+ * how many items failed, and how much time it spent on them. Every counter is a {@link LongAdder}, so recording from
+ * many threads neither allocates nor contends on a single field.
+ */
+public final class StageMetrics implements StageMetricsMXBean {
+
+    private final String name;
+    private final LongAdder items = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+
+    public StageMetrics(final String name) {
+        this.name = checkNotNull(name);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public void recordItem(final long elapsedNanos) {
+        items.increment();
+        nanos.add(elapsedNanos);
+    }
+
+    public void recordFailure(final long elapsedNanos) {
+        failures.increment();
+        nanos.add(elapsedNanos);
+    }
+
+    public void recordBytes(final long count) {
+        bytes.add(count);
+    }
+
+    @Override
+    public long getItems() {
+        return items.sum();
+    }
+
+    @Override
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getTotalNanos() {
+        return nanos.sum();
+    }
+
+    /**
+     * Items per second of time spent in this stage, which is the throughput the stage could sustain on its own.
+     */
+    @Override
+    public double getItemsPerSecond() {
+        long total = nanos.sum();
+        return total == 0 ? 0 : items.sum() * (double) TimeUnit.SECONDS.toNanos(1) / total;
+    }
+
+    @Override
+    public double getMeanNanos() {
+        long count = items.sum() + failures.sum();
+        return count == 0 ? 0 : (double) nanos.sum() / count;
+    }
+
+    @Override
+    public void reset() {
+        items.reset();
+        bytes.reset();
+        failures.reset();
+        nanos.reset();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("name", name).add("items", getItems()).add("bytes", getBytes())
+                .add("failures", getFailures()).add("itemsPerSecond", getItemsPerSecond()).toString();
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.floppywaste.metrics;
+
+
+/**
+ * The attributes of a {@link StageMetrics} as {@link JmxMetricsRegistry} exports them.
+ */
+public interface StageMetricsMXBean {
+
+    long getItems();
+
+    long getBytes();
+
+    long getFailures();
+
+    long getTotalNanos();
+
+    double getItemsPerSecond();
+
+    double getMeanNanos();
+
+    void reset();
+}
@@ -0,0 +1,67 @@
+package com.github.floppywaste.sensor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+
+/**
+ * Growable byte array that one column of a block is encoded into before the block is written. Variable length
+ * numbers use 7 bits per byte with the high bit marking that more bytes follow; signed ones are zigzag encoded first,
+ * so that small negative numbers stay short as well.
+ */
+final class ColumnBuffer {
+
+    private byte[] bytes = new byte[256];
+    private int size;
+
+    void putInt(final int value) {
+        ensureCapacity(4);
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            bytes[size++] = (byte) (value >>> shift);
+        }
+    }
+
+    void putLong(final long value) {
+        putInt((int) (value >>> 32));
+        putInt((int) value);
+    }
+
+    void putVarLong(final long value) {
+        ensureCapacity(10);
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            bytes[size++] = (byte) ((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        bytes[size++] = (byte) remaining;
+    }
+
+    void putSignedVarLong(final long value) {
+        putVarLong((value << 1) ^ (value >> 63));
+    }
+
+    void putBytes(final byte[] value) {
+        ensureCapacity(value.length);
+        System.arraycopy(value, 0, bytes, size, value.length);
+        size += value.length;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    void writeTo(final OutputStream out) throws IOException {
+        out.write(bytes, 0, size);
+    }
+
+    private void ensureCapacity(final int additional) {
+        if (size + additional > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.floppywaste.sensor;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Decodes what a {@link ColumnBuffer} encoded, reading a (mapped) buffer at absolute positions so that several cursors
+ * can walk the columns of a block side by side.
+ */
+final class ColumnCursor {
+
+    private final ByteBuffer buffer;
+    private int position;
+
+    ColumnCursor(final ByteBuffer buffer, final int position) {
+        this.buffer = buffer;
+        this.position = position;
+    }
+
+    int position() {
+        return position;
+    }
+
+    int getInt() {
+        int value = buffer.getInt(position);
+        position += 4;
+        return value;
+    }
+
+    long getLong() {
+        long value = buffer.getLong(position);
+        position += 8;
+        return value;
+    }
+
+    long getVarLong() {
+        long value = 0;
+        for (int shift = 0;; shift += 7) {
+            byte b = buffer.get(position++);
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    int getVarInt() {
+        return (int) getVarLong();
+    }
+
+    long getSignedVarLong() {
+        long encoded = getVarLong();
+        return (encoded >>> 1) ^ -(encoded & 1);
+    }
+
+    int getSignedVarInt() {
+        return (int) getSignedVarLong();
+    }
+
+    byte[] getBytes(final int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(position++);
+        }
+        return bytes;
+    }
+}
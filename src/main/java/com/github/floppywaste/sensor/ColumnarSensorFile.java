@@ -0,0 +1,403 @@
+package com.github.floppywaste.sensor;
+
+import static com.github.floppywaste.sensor.SensorAggregator.SEPARATOR;
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.github.floppywaste.base.CharSequences;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteSink;
+import com.google.common.io.ByteSource;
+import com.google.common.io.CharSource;
+import com.google.common.io.Closer;
+import com.google.common.io.LineProcessor;
+
+
+/**
+ * Columnar binary form of a {@code device,timestamp,value} file that is converted once and then reloaded without
+ * decoding or parsing text. Rows are stored in blocks; per block, the device column holds varint ids into a
+ * dictionary of device names, the timestamp column zigzag varint deltas, the first to the minimum timestamp of the
+ * block and every other one to the previous row, and the value column zigzag varints. Every block starts with its
+ * timestamp range and the count/sum/min/max of each of its devices, so the all-time statistics are summed up from
+ * the block headers without touching a single row, and a time range query scans only the blocks at its edges.
+ *
+ * <pre>
+ * ColumnarSensorFile.convert(Files.asCharSource(csv, UTF_8), Files.asByteSink(columnar));
+ * Map&lt;String, Double&gt; averages = ColumnarSensorFile.open(MappedByteSource.of(columnar)).averages();
+ * </pre>
+ *
+ * <p>Layout: magic and version, the blocks, a footer with the dictionary and the block offsets, and finally the footer
+ * offset and the magic again. A {@link MappedByteSource} is mapped as a whole, which limits files to 2GB.
+ */
+public final class ColumnarSensorFile {
+
+    static final int MAGIC = 0x53434F4C;
+    static final int VERSION = 1;
+    static final int DEFAULT_BLOCK_ROWS = 64 * 1024;
+    private static final int TRAILER_SIZE = 8 + 4;
+
+    private final ByteBuffer buffer;
+    private final ImmutableList<String> devices;
+    private final int[] blockOffsets;
+
+    private ColumnarSensorFile(final ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        int size = buffer.limit();
+        if (size < 8 + TRAILER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(size - 4) != MAGIC) {
+            throw new IOException("not a columnar sensor file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("unsupported version " + buffer.getInt(4));
+        }
+        ColumnCursor footer = new ColumnCursor(buffer, (int) buffer.getLong(size - TRAILER_SIZE));
+        ImmutableList.Builder<String> names = ImmutableList.builder();
+        for (int i = footer.getVarInt(); i > 0; i--) {
+            names.add(new String(footer.getBytes(footer.getVarInt()), UTF_8));
+        }
+        devices = names.build();
+        blockOffsets = new int[footer.getVarInt()];
+        for (int i = 0; i < blockOffsets.length; i++) {
+            blockOffsets[i] = (int) footer.getVarLong();
+        }
+    }
+
+    /**
+     * Converts with blocks of 64K rows.
+     *
+     * @return the number of rows
+     */
+    public static long convert(final CharSource csv, final ByteSink sink) throws IOException {
+        return convert(csv, sink, DEFAULT_BLOCK_ROWS);
+    }
+
+    /**
+     * Smaller blocks make time range queries scan fewer rows at their edges, larger ones make the file smaller.
+     *
+     * @return the number of rows
+     */
+    public static long convert(final CharSource csv, final ByteSink sink, final int blockRows) throws IOException {
+        checkArgument(blockRows > 0, "blockRows must be positive: %s", blockRows);
+        Closer closer = Closer.create();
+        try {
+            OutputStream out = closer.register(sink.openBufferedStream());
+            Converter converter = new Converter(out, blockRows);
+            csv.readLines(converter);
+            return converter.finish();
+        } catch (Throwable e) {
+            throw closer.rethrow(e);
+        } finally {
+            closer.close();
+        }
+    }
+
+    public static ColumnarSensorFile open(final ByteSource source) throws IOException {
+        if (source instanceof MappedByteSource) {
+            return new ColumnarSensorFile(((MappedByteSource) source).map(0, source.size()));
+        }
+        return new ColumnarSensorFile(ByteBuffer.wrap(source.read()));
+    }
+
+    /**
+     * The dictionary; device ids are indexes into this list.
+     */
+    public List<String> devices() {
+        return devices;
+    }
+
+    public int blockCount() {
+        return blockOffsets.length;
+    }
+
+    public long rowCount() {
+        long rows = 0;
+        for (int offset : blockOffsets) {
+            rows += buffer.getInt(offset);
+        }
+        return rows;
+    }
+
+    public Map<String, Double> averages() {
+        return ImmutableMap.copyOf(Maps.transformValues(statistics(), SensorAggregator.mean()));
+    }
+
+    /**
+     * The statistics per device, summed up from the block headers only.
+     */
+    public Map<String, DeviceStatistics> statistics() {
+        return statistics(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * The statistics per device of the rows with {@code from <= timestamp < to} (epoch millis). Blocks entirely
+     * inside the range contribute their header statistics, blocks at the edges are scanned, all others are skipped.
+     */
+    public Map<String, DeviceStatistics> statistics(final long from, final long to) {
+        final DeviceStatistics[] result = new DeviceStatistics[devices.size()];
+        RowHandler inRange = new RowHandler() {
+
+            @Override
+            public void row(final int device, final long timestamp, final int value) {
+                if (timestamp >= from && timestamp < to) {
+                    statistics(result, device).add(value);
+                }
+            }
+        };
+        for (int offset : blockOffsets) {
+            Block block = new Block(buffer, offset);
+            if (block.minTimestamp >= from && block.maxTimestamp < to) {
+                ColumnCursor stats = new ColumnCursor(buffer, block.statsStart);
+                for (int i = block.deviceCount; i > 0; i--) {
+                    statistics(result, stats.getVarInt()).merge(readStatistics(stats));
+                }
+            } else if (block.maxTimestamp >= from && block.minTimestamp < to) {
+                block.scan(inRange);
+            }
+        }
+        Map<String, DeviceStatistics> statistics = Maps.newLinkedHashMap();
+        for (int device = 0; device < result.length; device++) {
+            if (result[device] != null) {
+                statistics.put(devices.get(device), result[device]);
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Decodes every row, in the order of the original file.
+     */
+    public void scan(final RowHandler handler) {
+        for (int offset : blockOffsets) {
+            new Block(buffer, offset).scan(handler);
+        }
+    }
+
+    /**
+     * Receives decoded rows; {@code device} indexes {@link ColumnarSensorFile#devices()}.
+     */
+    public interface RowHandler {
+
+        void row(int device, long timestamp, int value);
+    }
+
+    private static DeviceStatistics statistics(final DeviceStatistics[] statistics, final int device) {
+        if (statistics[device] == null) {
+            statistics[device] = new DeviceStatistics();
+        }
+        return statistics[device];
+    }
+
+    private static DeviceStatistics readStatistics(final ColumnCursor stats) {
+        long count = stats.getVarLong();
+        long sum = stats.getSignedVarLong();
+        int min = stats.getSignedVarInt();
+        int max = stats.getSignedVarInt();
+        return DeviceStatistics.of(count, sum, min, max);
+    }
+
+    /**
+     * Header: row count, min and max timestamp, device count, and the byte lengths of the statistics and the three
+     * columns, followed by those sections.
+     */
+    private static final class Block {
+
+        final ByteBuffer buffer;
+        final int rows;
+        final long minTimestamp;
+        final long maxTimestamp;
+        final int deviceCount;
+        final int statsStart;
+        final int deviceColumnStart;
+        final int timestampColumnStart;
+        final int valueColumnStart;
+
+        Block(final ByteBuffer buffer, final int offset) {
+            ColumnCursor header = new ColumnCursor(buffer, offset);
+            this.buffer = buffer;
+            rows = header.getInt();
+            minTimestamp = header.getLong();
+            maxTimestamp = header.getLong();
+            deviceCount = header.getInt();
+            int statsLength = header.getInt();
+            int deviceColumnLength = header.getInt();
+            int timestampColumnLength = header.getInt();
+            header.getInt();
+            statsStart = header.position();
+            deviceColumnStart = statsStart + statsLength;
+            timestampColumnStart = deviceColumnStart + deviceColumnLength;
+            valueColumnStart = timestampColumnStart + timestampColumnLength;
+        }
+
+        void scan(final RowHandler handler) {
+            ColumnCursor deviceColumn = new ColumnCursor(buffer, deviceColumnStart);
+            ColumnCursor timestampColumn = new ColumnCursor(buffer, timestampColumnStart);
+            ColumnCursor valueColumn = new ColumnCursor(buffer, valueColumnStart);
+            long timestamp = minTimestamp;
+            for (int row = 0; row < rows; row++) {
+                timestamp += timestampColumn.getSignedVarLong();
+                handler.row(deviceColumn.getVarInt(), timestamp, valueColumn.getSignedVarInt());
+            }
+        }
+    }
+
+    private static final class Converter implements LineProcessor<Long> {
+
+        private final OutputStream out;
+        private final int blockRows;
+        private long written;
+
+        private final DeviceDictionary dictionary = DeviceDictionary.create();
+        private final List<DeviceStatistics> blockStatistics = Lists.newArrayList();
+        // the devices of the current block, in order of first appearance within it
+        private int[] blockDevices = new int[16];
+        private int deviceCount;
+        private final ColumnBuffer index = new ColumnBuffer();
+        private int blockCount;
+        private long rows;
+
+        private final ColumnBuffer header = new ColumnBuffer();
+        private final ColumnBuffer stats = new ColumnBuffer();
+        private final ColumnBuffer deviceColumn = new ColumnBuffer();
+        private final ColumnBuffer timestampColumn = new ColumnBuffer();
+        private final ColumnBuffer valueColumn = new ColumnBuffer();
+        // the first delta is relative to the block minimum, which is only known at the end of the block, the others
+        // to the previous row
+        private long[] timestamps;
+        private int blockSize;
+        private long minTimestamp = Long.MAX_VALUE;
+        private long maxTimestamp = Long.MIN_VALUE;
+
+        Converter(final OutputStream out, final int blockRows) throws IOException {
+            this.out = out;
+            this.blockRows = blockRows;
+            this.timestamps = new long[Math.min(blockRows, 1024)];
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            write(header);
+        }
+
+        @Override
+        public boolean processLine(final String line) throws IOException {
+            if (line.isEmpty()) {
+                return true;
+            }
+            int firstSeparator = line.indexOf(SEPARATOR);
+            int lastSeparator = line.lastIndexOf(SEPARATOR);
+            if (firstSeparator < 0 || firstSeparator == lastSeparator) {
+                throw new IllegalArgumentException("expected device,timestamp,value but got: " + line);
+            }
+            long timestamp = Timestamps.parseEpochMillis(line, firstSeparator + 1, lastSeparator);
+            int value = CharSequences.parseInt(line, lastSeparator + 1, line.length());
+            int id = idOf(line, firstSeparator);
+
+            DeviceStatistics statistics = blockStatistics.get(id);
+            if (statistics.count() == 0) {
+                if (deviceCount == blockDevices.length) {
+                    blockDevices = Arrays.copyOf(blockDevices, deviceCount * 2);
+                }
+                blockDevices[deviceCount++] = id;
+            }
+            statistics.add(value);
+            deviceColumn.putVarLong(id);
+            if (blockSize == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, Math.min(blockRows, blockSize * 2));
+            }
+            timestamps[blockSize] = timestamp;
+            valueColumn.putSignedVarLong(value);
+            minTimestamp = Math.min(minTimestamp, timestamp);
+            maxTimestamp = Math.max(maxTimestamp, timestamp);
+            if (++blockSize == blockRows) {
+                flushBlock();
+            }
+            return true;
+        }
+
+        private int idOf(final String line, final int deviceEnd) {
+            int id = dictionary.intern(line, 0, deviceEnd);
+            if (id == blockStatistics.size()) {
+                blockStatistics.add(new DeviceStatistics());
+            }
+            return id;
+        }
+
+        private void flushBlock() throws IOException {
+            if (blockSize == 0) {
+                return;
+            }
+            for (int i = 0; i < deviceCount; i++) {
+                int id = blockDevices[i];
+                DeviceStatistics statistics = blockStatistics.get(id);
+                stats.putVarLong(id);
+                stats.putVarLong(statistics.count());
+                stats.putSignedVarLong(statistics.sum());
+                stats.putSignedVarLong(statistics.min());
+                stats.putSignedVarLong(statistics.max());
+                statistics.clear();
+            }
+            long previous = minTimestamp;
+            for (int row = 0; row < blockSize; row++) {
+                timestampColumn.putSignedVarLong(timestamps[row] - previous);
+                previous = timestamps[row];
+            }
+
+            header.putInt(blockSize);
+            header.putLong(minTimestamp);
+            header.putLong(maxTimestamp);
+            header.putInt(deviceCount);
+            header.putInt(stats.size());
+            header.putInt(deviceColumn.size());
+            header.putInt(timestampColumn.size());
+            header.putInt(valueColumn.size());
+            index.putVarLong(written);
+            blockCount++;
+            rows += blockSize;
+            for (ColumnBuffer section : new ColumnBuffer[] { header, stats, deviceColumn, timestampColumn,
+                    valueColumn }) {
+                write(section);
+            }
+            deviceCount = 0;
+            blockSize = 0;
+            minTimestamp = Long.MAX_VALUE;
+            maxTimestamp = Long.MIN_VALUE;
+        }
+
+        long finish() throws IOException {
+            flushBlock();
+            long footerOffset = written;
+            checkArgument(footerOffset <= Integer.MAX_VALUE, "columnar files are limited to 2GB");
+            header.putVarLong(dictionary.size());
+            for (int id = 0; id < dictionary.size(); id++) {
+                byte[] name = dictionary.name(id).getBytes(UTF_8);
+                header.putVarLong(name.length);
+                header.putBytes(name);
+            }
+            header.putVarLong(blockCount);
+            write(header);
+            write(index);
+            header.putLong(footerOffset);
+            header.putInt(MAGIC);
+            write(header);
+            return rows;
+        }
+
+        @Override
+        public Long getResult() {
+            return rows;
+        }
+
+        private void write(final ColumnBuffer section) throws IOException {
+            section.writeTo(out);
+            written += section.size();
+            section.clear();
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.github.floppywaste.sensor;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import com.google.common.base.MoreObjects;
+
+
+/**
+ * Interns device names into dense {@code int} ids {@code 0, 1, 2, ...} in order of first appearance. A few thousand
+ * devices account for billions of rows, so names are resolved straight from a range of the chars or UTF-8 bytes of a
+ * line: a known name is found without allocating, and a new one is copied into a {@code String} exactly once.
+ * Per-device state can then live in arrays indexed by the id instead of maps keyed by the name.
+ *
+ * <pre>
+ * DeviceDictionary devices = DeviceDictionary.create();
+ * int id = devices.intern(line, 0, line.indexOf(','));
+ * String name = devices.name(id);
+ * </pre>
+ *
+ * Lookups of known names are lock free and safe from any number of threads; adding a name takes a lock. Ids are
+ * never reused or reassigned.
+ */
+public final class DeviceDictionary {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private volatile Names names = new Names(INITIAL_CAPACITY);
+    private volatile int size;
+
+    private DeviceDictionary() {
+    }
+
+    public static DeviceDictionary create() {
+        return new DeviceDictionary();
+    }
+
+    public int intern(final CharSequence name) {
+        return intern(name, 0, name.length());
+    }
+
+    /**
+     * The id of the name in {@code [start, end)} of {@code chars}, added if it is new.
+     */
+    public int intern(final CharSequence chars, final int start, final int end) {
+        checkPositionIndexes(start, end, chars.length());
+        int hash = hash(chars, start, end);
+        int id = names.find(chars, start, end, hash);
+        return id >= 0 ? id : add(chars.subSequence(start, end).toString());
+    }
+
+    /**
+     * The id of the name encoded as UTF-8 in {@code [start, end)} of {@code bytes}, added if it is new.
+     */
+    public int intern(final ByteBuffer bytes, final int start, final int end) {
+        checkPositionIndexes(start, end, bytes.limit());
+        return intern(bytes, start, end, hash(bytes, start, end));
+    }
+
+    /**
+     * Same as {@link #intern(ByteBuffer, int, int)} with the {@link #hash(ByteBuffer, int, int)} that a parser has
+     * computed while it scanned for the separator.
+     */
+    int intern(final ByteBuffer bytes, final int start, final int end, final int hash) {
+        int id = names.find(bytes, start, end, hash);
+        if (id >= 0) {
+            return id;
+        }
+        byte[] key = new byte[end - start];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = bytes.get(start + i);
+        }
+        return add(key, hash);
+    }
+
+    /**
+     * The id of the name in {@code [start, end)} of {@code chars}, or -1 if it has not been interned.
+     */
+    public int find(final CharSequence chars, final int start, final int end) {
+        checkPositionIndexes(start, end, chars.length());
+        return names.find(chars, start, end, hash(chars, start, end));
+    }
+
+    public String name(final int id) {
+        checkElementIndex(id, size);
+        return names.names[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    static int hash(final ByteBuffer bytes, final int start, final int end) {
+        int hash = 1;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + bytes.get(i);
+        }
+        return hash;
+    }
+
+    static int hash(final CharSequence chars, final int start, final int end) {
+        int hash = 1;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + chars.charAt(i);
+        }
+        return hash;
+    }
+
+    private synchronized int add(final String name) {
+        int hash = hash(name, 0, name.length());
+        int id = names.find(name, 0, name.length(), hash);
+        if (id >= 0) {
+            return id;
+        }
+        byte[] key = name.getBytes(UTF_8);
+        return add(name, hash, key, hash(ByteBuffer.wrap(key), 0, key.length));
+    }
+
+    private synchronized int add(final byte[] key, final int keyHash) {
+        int id = names.find(ByteBuffer.wrap(key), 0, key.length, keyHash);
+        if (id >= 0) {
+            return id;
+        }
+        String name = new String(key, UTF_8);
+        return add(name, hash(name, 0, name.length()), key, keyHash);
+    }
+
+    private int add(final String name, final int nameHash, final byte[] key, final int keyHash) {
+        int id = size;
+        Names current = names;
+        if (id == current.names.length) {
+            current = current.grow(id);
+            names = current;
+        }
+        current.set(id, name, nameHash, key, keyHash);
+        // published before the id can be found, so name(id) accepts every id that intern returns
+        size = id + 1;
+        current.link(id);
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("size", size).toString();
+    }
+
+    /*
+     * Two open addressing tables over the same ids, one probed with char hashes and one with byte hashes. A slot
+     * holds id + 1, 0 marks it free. The entry arrays are written before the slot that refers to them, and the
+     * slots are volatile, so a reader that finds an id also sees its entry. The dictionary publishes its size in
+     * between, so a found id is always below it. A full table is replaced by a larger
+     * copy instead of being rehashed in place, so readers that still probe the old one see a consistent snapshot.
+     */
+    private static final class Names {
+        final AtomicIntegerArray charSlots;
+        final AtomicIntegerArray byteSlots;
+        final String[] names;
+        final int[] nameHashes;
+        final byte[][] keys;
+        final int[] keyHashes;
+
+        Names(final int capacity) {
+            charSlots = new AtomicIntegerArray(capacity * 2);
+            byteSlots = new AtomicIntegerArray(capacity * 2);
+            names = new String[capacity];
+            nameHashes = new int[capacity];
+            keys = new byte[capacity][];
+            keyHashes = new int[capacity];
+        }
+
+        int find(final CharSequence chars, final int start, final int end, final int hash) {
+            int mask = charSlots.length() - 1;
+            for (int slot = spread(hash) & mask;; slot = (slot + 1) & mask) {
+                int id = charSlots.get(slot) - 1;
+                if (id < 0) {
+                    return -1;
+                }
+                if (nameHashes[id] == hash && matches(names[id], chars, start, end)) {
+                    return id;
+                }
+            }
+        }
+
+        int find(final ByteBuffer bytes, final int start, final int end, final int hash) {
+            int mask = byteSlots.length() - 1;
+            for (int slot = spread(hash) & mask;; slot = (slot + 1) & mask) {
+                int id = byteSlots.get(slot) - 1;
+                if (id < 0) {
+                    return -1;
+                }
+                if (keyHashes[id] == hash && matches(keys[id], bytes, start, end)) {
+                    return id;
+                }
+            }
+        }
+
+        void set(final int id, final String name, final int nameHash, final byte[] key, final int keyHash) {
+            names[id] = name;
+            nameHashes[id] = nameHash;
+            keys[id] = key;
+            keyHashes[id] = keyHash;
+        }
+
+        void link(final int id) {
+            link(charSlots, nameHashes[id], id);
+            link(byteSlots, keyHashes[id], id);
+        }
+
+        Names grow(final int size) {
+            Names grown = new Names(names.length * 2);
+            for (int id = 0; id < size; id++) {
+                grown.set(id, names[id], nameHashes[id], keys[id], keyHashes[id]);
+                grown.link(id);
+            }
+            return grown;
+        }
+
+        private static void link(final AtomicIntegerArray slots, final int hash, final int id) {
+            int mask = slots.length() - 1;
+            int slot = spread(hash) & mask;
+            while (slots.get(slot) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots.set(slot, id + 1);
+        }
+
+        private static boolean matches(final String name, final CharSequence chars, final int start, final int end) {
+            if (end - start != name.length()) {
+                return false;
+            }
+            for (int i = 0; i < name.length(); i++) {
+                if (name.charAt(i) != chars.charAt(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean matches(final byte[] key, final ByteBuffer bytes, final int start, final int end) {
+            if (end - start != key.length) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != bytes.get(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int spread(final int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
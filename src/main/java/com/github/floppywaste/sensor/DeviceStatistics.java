@@ -0,0 +1,100 @@
+package com.github.floppywaste.sensor;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+
+
+/**
+ * Running count/sum/min/max of the readings of a single device, kept in primitive fields so that adding a reading
+ * never allocates.
+ */
+public final class DeviceStatistics {
+
+    private long count;
+    private long sum;
+    private int min = Integer.MAX_VALUE;
+    private int max = Integer.MIN_VALUE;
+
+    static DeviceStatistics of(final long count, final long sum, final int min, final int max) {
+        DeviceStatistics statistics = new DeviceStatistics();
+        statistics.count = count;
+        statistics.sum = sum;
+        statistics.min = min;
+        statistics.max = max;
+        return statistics;
+    }
+
+    public void add(final int value) {
+        count++;
+        sum += value;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    public void merge(final DeviceStatistics other) {
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    void clear() {
+        count = 0;
+        sum = 0;
+        min = Integer.MAX_VALUE;
+        max = Integer.MIN_VALUE;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long sum() {
+        return sum;
+    }
+
+    public int min() {
+        checkState(count > 0, "no readings");
+        return min;
+    }
+
+    public int max() {
+        checkState(count > 0, "no readings");
+        return max;
+    }
+
+    /*
+     * The sum is exact, so every engine that divides it by the count yields the very same double regardless of the
+     * order in which the readings were added or merged.
+     */
+    public double mean() {
+        checkState(count > 0, "no readings");
+        return (double) sum / count;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (!(obj instanceof DeviceStatistics)) {
+            return false;
+        }
+        DeviceStatistics other = (DeviceStatistics) obj;
+        return count == other.count && sum == other.sum && min == other.min && max == other.max;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(count, sum, min, max);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("count", count).add("sum", sum).add("min", min).add("max", max)
+                .toString();
+    }
+}
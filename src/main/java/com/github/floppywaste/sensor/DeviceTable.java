@@ -0,0 +1,82 @@
+package com.github.floppywaste.sensor;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+
+import com.google.common.collect.Maps;
+
+
+/**
+ * The {@link DeviceStatistics} per device id of a {@link DeviceDictionary}, in an array indexed by the id. Lookups
+ * resolve the raw bytes of a device name in place, so the name is decoded into a {@code String} only once, when the
+ * dictionary sees it for the first time. Tables that share a dictionary merge id by id without hashing any name.
+ */
+final class DeviceTable {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final DeviceDictionary dictionary;
+    private DeviceStatistics[] statistics = new DeviceStatistics[INITIAL_CAPACITY];
+    // the ids in order of first appearance in this table
+    private int[] devices = new int[INITIAL_CAPACITY];
+    private int size;
+
+    DeviceTable() {
+        this(DeviceDictionary.create());
+    }
+
+    DeviceTable(final DeviceDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    DeviceDictionary dictionary() {
+        return dictionary;
+    }
+
+    DeviceStatistics statisticsFor(final ByteBuffer buffer, final int start, final int end, final int hash) {
+        return statistics(dictionary.intern(buffer, start, end, hash));
+    }
+
+    DeviceStatistics statistics(final int device) {
+        if (device >= statistics.length) {
+            statistics = Arrays.copyOf(statistics, Math.max(device + 1, statistics.length * 2));
+        }
+        DeviceStatistics result = statistics[device];
+        if (result == null) {
+            result = new DeviceStatistics();
+            statistics[device] = result;
+            if (size == devices.length) {
+                devices = Arrays.copyOf(devices, size * 2);
+            }
+            devices[size++] = device;
+        }
+        return result;
+    }
+
+    /**
+     * Adds the statistics of {@code other} to this table, appending devices this table has not seen yet.
+     */
+    void merge(final DeviceTable other) {
+        for (int i = 0; i < other.size; i++) {
+            int device = other.devices[i];
+            int id = other.dictionary == dictionary ? device : dictionary.intern(other.dictionary.name(device));
+            statistics(id).merge(other.statistics[device]);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * The statistics per device name, in order of first appearance.
+     */
+    Map<String, DeviceStatistics> toMap() {
+        Map<String, DeviceStatistics> result = Maps.newLinkedHashMap();
+        for (int i = 0; i < size; i++) {
+            result.put(dictionary.name(devices[i]), statistics[devices[i]]);
+        }
+        return result;
+    }
+}
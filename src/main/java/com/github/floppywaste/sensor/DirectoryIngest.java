@@ -0,0 +1,203 @@
+package com.github.floppywaste.sensor;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+
+/**
+ * Aggregates a whole directory of {@code device,timestamp,value} files, one parse task per file on a caller supplied
+ * executor. At most {@code maxOpenFiles} tasks are in flight at any time, which bounds the open files and the
+ * per-file results held in memory without blocking the executor's threads. Per-file results are merged into one
+ * aggregate on the calling thread as the tasks complete; a file that fails is reported with its exception while the
+ * rest of the batch goes on. All files, and all batches of the same instance, resolve device names through one
+ * {@link DeviceDictionary}, so merging a file adds up statistics id by id.
+ *
+ * <pre>
+ * ExecutorService executor = DirectoryIngest.newExecutor(8);
+ * IngestResult result = DirectoryIngest.using(executor).maxOpenFiles(64).ingest(directory);
+ * </pre>
+ *
+ * Instances are immutable; the configuration methods return new ones.
+ */
+public final class DirectoryIngest {
+
+    static final int DEFAULT_MAX_OPEN_FILES = 64;
+
+    private final Executor executor;
+    private final int maxOpenFiles;
+    private final Predicate<? super File> filter;
+    private final DeviceDictionary dictionary;
+
+    private DirectoryIngest(final Executor executor, final int maxOpenFiles, final Predicate<? super File> filter,
+            final DeviceDictionary dictionary) {
+        this.executor = executor;
+        this.maxOpenFiles = maxOpenFiles;
+        this.filter = filter;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Runs the parse tasks on {@code executor}, which stays owned by the caller.
+     */
+    public static DirectoryIngest using(final Executor executor) {
+        return new DirectoryIngest(checkNotNull(executor), DEFAULT_MAX_OPEN_FILES, Predicates.alwaysTrue(),
+                DeviceDictionary.create());
+    }
+
+    /**
+     * A virtual thread per task when the JDK has them (21 and later), otherwise a fixed pool of {@code threads}
+     * daemon threads.
+     */
+    public static ExecutorService newExecutor(final int threads) {
+        checkArgument(threads > 0, "threads must be positive: %s", threads);
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(threads,
+                    new ThreadFactoryBuilder().setDaemon(true).setNameFormat("directory-ingest-%d").build());
+        }
+    }
+
+    public DirectoryIngest maxOpenFiles(final int maxOpenFiles) {
+        checkArgument(maxOpenFiles > 0, "maxOpenFiles must be positive: %s", maxOpenFiles);
+        return new DirectoryIngest(executor, maxOpenFiles, filter, dictionary);
+    }
+
+    /**
+     * Ingests only the files of a directory that match, e.g. by their name.
+     */
+    public DirectoryIngest filter(final Predicate<? super File> filter) {
+        return new DirectoryIngest(executor, maxOpenFiles, checkNotNull(filter), dictionary);
+    }
+
+    /**
+     * Resolves device names through {@code dictionary}, e.g. one shared with the other stages of a pipeline.
+     */
+    public DirectoryIngest dictionary(final DeviceDictionary dictionary) {
+        return new DirectoryIngest(executor, maxOpenFiles, filter, checkNotNull(dictionary));
+    }
+
+    /**
+     * Ingests the regular files directly in {@code directory} that pass the filter.
+     */
+    public IngestResult ingest(final File directory) throws IOException, InterruptedException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            throw new IOException(directory + " is not a readable directory");
+        }
+        Arrays.sort(files);
+        ImmutableList.Builder<File> selected = ImmutableList.builder();
+        for (File file : files) {
+            if (file.isFile() && filter.apply(file)) {
+                selected.add(file);
+            }
+        }
+        return ingest(selected.build());
+    }
+
+    /**
+     * Ingests the given files; the filter does not apply, and a file listed more than once is read once. If the
+     * calling thread is interrupted, the tasks still running are cancelled.
+     */
+    public IngestResult ingest(final Iterable<File> files) throws InterruptedException {
+        CompletionService<DeviceTable> completion = new ExecutorCompletionService<DeviceTable>(executor);
+        Map<Future<DeviceTable>, File> running = Maps.newHashMap();
+        DeviceTable devices = new DeviceTable(dictionary);
+        ImmutableMap.Builder<File, Throwable> failures = ImmutableMap.builder();
+        int read = 0;
+        Iterator<File> remaining = ImmutableSet.copyOf(files).iterator();
+        try {
+            while (remaining.hasNext() || !running.isEmpty()) {
+                while (running.size() < maxOpenFiles && remaining.hasNext()) {
+                    File file = remaining.next();
+                    running.put(completion.submit(parse(file)), file);
+                }
+                Future<DeviceTable> done = completion.take();
+                File file = running.remove(done);
+                try {
+                    devices.merge(done.get());
+                    read++;
+                } catch (ExecutionException e) {
+                    failures.put(file, e.getCause());
+                }
+            }
+        } finally {
+            for (Future<DeviceTable> future : running.keySet()) {
+                future.cancel(true);
+            }
+        }
+        return new IngestResult(devices.toMap(), read, failures.build());
+    }
+
+    private Callable<DeviceTable> parse(final File file) {
+        return new Callable<DeviceTable>() {
+
+            @Override
+            public DeviceTable call() throws IOException {
+                return MappedSensorReader.read(MappedByteSource.of(file), MappedSensorReader.MAX_REGION_SIZE,
+                        MappedSensorReader.BUFFER_SIZE, dictionary);
+            }
+        };
+    }
+
+    /**
+     * The merged statistics of all files that were read, and the files that could not be.
+     */
+    public static final class IngestResult {
+
+        private final Map<String, DeviceStatistics> statistics;
+        private final int filesRead;
+        private final ImmutableMap<File, Throwable> failures;
+
+        IngestResult(final Map<String, DeviceStatistics> statistics, final int filesRead,
+                final ImmutableMap<File, Throwable> failures) {
+            this.statistics = statistics;
+            this.filesRead = filesRead;
+            this.failures = failures;
+        }
+
+        /**
+         * The statistics per device over all files read, with devices in no particular order.
+         */
+        public Map<String, DeviceStatistics> statistics() {
+            return statistics;
+        }
+
+        public Map<String, Double> averages() {
+            return ImmutableMap.copyOf(Maps.transformValues(statistics, SensorAggregator.mean()));
+        }
+
+        public int filesRead() {
+            return filesRead;
+        }
+
+        /**
+         * The exception of every file that could not be read or parsed.
+         */
+        public Map<File, Throwable> failures() {
+            return failures;
+        }
+    }
+}
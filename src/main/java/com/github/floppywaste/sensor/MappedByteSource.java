@@ -0,0 +1,73 @@
+package com.github.floppywaste.sensor;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import com.google.common.io.ByteSource;
+import com.google.common.io.Closer;
+
+
+/**
+ * A file {@link ByteSource} that can also hand out read-only memory mapped regions of the file. Readers that know
+ * about it scan the mapped bytes directly, everybody else sees a plain {@code ByteSource}.
+ */
+public final class MappedByteSource extends ByteSource {
+
+    private final File file;
+
+    private MappedByteSource(final File file) {
+        this.file = checkNotNull(file);
+    }
+
+    public static MappedByteSource of(final File file) {
+        return new MappedByteSource(file);
+    }
+
+    public File file() {
+        return file;
+    }
+
+    @Override
+    public InputStream openStream() throws IOException {
+        return new FileInputStream(file);
+    }
+
+    @Override
+    public long size() throws IOException {
+        if (!file.isFile()) {
+            throw new IOException(file + " is not a file");
+        }
+        return file.length();
+    }
+
+    /**
+     * Maps {@code size} bytes starting at {@code position}. The mapping stays valid after this method returns, even
+     * though the underlying channel is already closed.
+     */
+    public MappedByteBuffer map(final long position, final long size) throws IOException {
+        checkArgument(size <= Integer.MAX_VALUE, "cannot map more than 2GB at once: %s", size);
+        Closer closer = Closer.create();
+        try {
+            FileChannel channel = closer.register(new RandomAccessFile(file, "r")).getChannel();
+            return channel.map(MapMode.READ_ONLY, position, size);
+        } catch (Throwable e) {
+            throw closer.rethrow(e);
+        } finally {
+            closer.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MappedByteSource.of(" + file + ")";
+    }
+}
@@ -0,0 +1,108 @@
+package com.github.floppywaste.sensor;
+
+import static com.github.floppywaste.sensor.SensorByteParser.NEWLINE;
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closer;
+
+
+/**
+ * Aggregates {@code device,timestamp,value} data on the byte level, without decoding it into characters and without
+ * creating a {@code String} per line or field. A {@link MappedByteSource} is scanned through memory mapped regions,
+ * any other {@link ByteSource} is streamed through a reusable buffer.
+ */
+public final class MappedSensorReader {
+
+    static final int MAX_REGION_SIZE = Integer.MAX_VALUE;
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private MappedSensorReader() {
+    }
+
+    public static Map<String, Double> averages(final ByteSource source) throws IOException {
+        return ImmutableMap.copyOf(Maps.transformValues(statistics(source), SensorAggregator.mean()));
+    }
+
+    public static Map<String, DeviceStatistics> statistics(final ByteSource source) throws IOException {
+        return read(source, MAX_REGION_SIZE, BUFFER_SIZE).toMap();
+    }
+
+    static DeviceTable read(final ByteSource source, final int regionSize, final int bufferSize) throws IOException {
+        return read(source, regionSize, bufferSize, DeviceDictionary.create());
+    }
+
+    static DeviceTable read(final ByteSource source, final int regionSize, final int bufferSize,
+            final DeviceDictionary dictionary) throws IOException {
+        DeviceTable devices = new DeviceTable(dictionary);
+        if (source instanceof MappedByteSource) {
+            readMapped((MappedByteSource) source, regionSize, devices);
+        } else {
+            readStreamed(source, bufferSize, devices);
+        }
+        return devices;
+    }
+
+    /*
+     * Files larger than a single mapping are processed region by region, each region cut back to its last line
+     * break so that no line is split between two mappings.
+     */
+    private static void readMapped(final MappedByteSource source, final int regionSize, final DeviceTable devices)
+            throws IOException {
+        long size = source.size();
+        long position = 0;
+        while (position < size) {
+            long remaining = size - position;
+            int length = (int) Math.min(regionSize, remaining);
+            ByteBuffer region = source.map(position, length);
+            int parseEnd = length;
+            if (length < remaining) {
+                parseEnd = SensorByteParser.lastIndexOf(region, NEWLINE, 0, length) + 1;
+                checkArgument(parseEnd > 0, "line at offset %s is longer than the region size %s", position,
+                        regionSize);
+            }
+            SensorByteParser.parse(region, 0, parseEnd, devices);
+            position += parseEnd;
+        }
+    }
+
+    private static void readStreamed(final ByteSource source, final int bufferSize, final DeviceTable devices)
+            throws IOException {
+        Closer closer = Closer.create();
+        try {
+            InputStream in = closer.register(source.openStream());
+            byte[] buffer = new byte[bufferSize];
+            int filled = 0;
+            while (true) {
+                if (filled == buffer.length) {
+                    // a single line does not fit, so grow instead of splitting it
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                int read = ByteStreams.read(in, buffer, filled, buffer.length - filled);
+                filled += read;
+                boolean eof = filled < buffer.length;
+                ByteBuffer wrapped = ByteBuffer.wrap(buffer, 0, filled);
+                int parseEnd = eof ? filled : SensorByteParser.lastIndexOf(wrapped, NEWLINE, 0, filled) + 1;
+                SensorByteParser.parse(wrapped, 0, parseEnd, devices);
+                System.arraycopy(buffer, parseEnd, buffer, 0, filled - parseEnd);
+                filled -= parseEnd;
+                if (eof) {
+                    return;
+                }
+            }
+        } catch (Throwable e) {
+            throw closer.rethrow(e);
+        } finally {
+            closer.close();
+        }
+    }
+}
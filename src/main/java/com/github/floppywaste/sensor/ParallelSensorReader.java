@@ -0,0 +1,156 @@
+package com.github.floppywaste.sensor;
+
+import static com.github.floppywaste.sensor.SensorByteParser.NEWLINE;
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteSource;
+import com.google.common.io.Closer;
+
+
+/**
+ * Parallel variant of {@link MappedSensorReader}: the input is cut into byte ranges aligned to line breaks, every
+ * range is aggregated on a {@link ForkJoinPool} into its own partial {@link DeviceTable}, and the partials are merged
+ * left to right. All partials share one {@link DeviceDictionary}, so the merges add up statistics id by id. Sums
+ * and counts are exact integers, so the result is identical to the sequential readers, including the order of the
+ * devices.
+ */
+public final class ParallelSensorReader {
+
+    static final int DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
+    private static final int PROBE_SIZE = 8 * 1024;
+
+    private ParallelSensorReader() {
+    }
+
+    public static Map<String, Double> averages(final ByteSource source) throws IOException {
+        return averages(source, ForkJoinPool.commonPool());
+    }
+
+    public static Map<String, Double> averages(final ByteSource source, final ForkJoinPool pool) throws IOException {
+        return ImmutableMap.copyOf(Maps.transformValues(statistics(source, pool, DEFAULT_CHUNK_SIZE),
+                SensorAggregator.mean()));
+    }
+
+    public static Map<String, DeviceStatistics> statistics(final ByteSource source, final ForkJoinPool pool,
+            final int chunkSize) throws IOException {
+        return read(source, pool, chunkSize).toMap();
+    }
+
+    static DeviceTable read(final ByteSource source, final ForkJoinPool pool, final int chunkSize)
+            throws IOException {
+        checkArgument(chunkSize > 0, "chunkSize must be positive: %s", chunkSize);
+        long[] boundaries = boundaries(source, chunkSize);
+        try {
+            return pool.invoke(new ChunkTask(source, DeviceDictionary.create(), boundaries, 0, boundaries.length - 1));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Offsets {@code 0 = b0 < b1 < ... < bn = size} where every {@code bi} is the start of a line and no range is
+     * (much) larger than {@code chunkSize}, unless a single line is.
+     */
+    static long[] boundaries(final ByteSource source, final int chunkSize) throws IOException {
+        long size = source.size();
+        long[] boundaries = new long[(int) Math.min(Integer.MAX_VALUE - 8, size / chunkSize + 2)];
+        int count = 1;
+        long previous = 0;
+        while (previous < size) {
+            long next = previous + chunkSize >= size ? size : nextLineStart(source, previous + chunkSize, size);
+            boundaries[count++] = next;
+            previous = next;
+        }
+        return Arrays.copyOf(boundaries, count);
+    }
+
+    private static long nextLineStart(final ByteSource source, final long position, final long size)
+            throws IOException {
+        // start one byte early so that a cut right behind a line break stays where it is
+        long probe = position - 1;
+        Closer closer = Closer.create();
+        try {
+            InputStream in = closer.register(source.slice(probe, size - probe).openBufferedStream());
+            byte[] buffer = new byte[PROBE_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == NEWLINE) {
+                        return probe + i + 1;
+                    }
+                }
+                probe += read;
+            }
+            return size;
+        } catch (Throwable e) {
+            throw closer.rethrow(e);
+        } finally {
+            closer.close();
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class ChunkTask extends RecursiveTask<DeviceTable> {
+
+        private final ByteSource source;
+        private final DeviceDictionary dictionary;
+        private final long[] boundaries;
+        private final int from;
+        private final int to;
+
+        ChunkTask(final ByteSource source, final DeviceDictionary dictionary, final long[] boundaries, final int from,
+                final int to) {
+            this.source = source;
+            this.dictionary = dictionary;
+            this.boundaries = boundaries;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected DeviceTable compute() {
+            if (to - from <= 1) {
+                return parseChunk();
+            }
+            int middle = (from + to) >>> 1;
+            ChunkTask right = new ChunkTask(source, dictionary, boundaries, middle, to);
+            right.fork();
+            DeviceTable left = new ChunkTask(source, dictionary, boundaries, from, middle).compute();
+            left.merge(right.join());
+            return left;
+        }
+
+        private DeviceTable parseChunk() {
+            DeviceTable devices = new DeviceTable(dictionary);
+            if (from == to) {
+                return devices;
+            }
+            long start = boundaries[from];
+            long length = boundaries[to] - start;
+            checkArgument(length <= Integer.MAX_VALUE, "line at offset %s does not fit into a chunk", start);
+            try {
+                ByteBuffer chunk;
+                if (source instanceof MappedByteSource) {
+                    chunk = ((MappedByteSource) source).map(start, length);
+                } else {
+                    chunk = ByteBuffer.wrap(source.slice(start, length).read());
+                }
+                SensorByteParser.parse(chunk, 0, chunk.limit(), devices);
+                return devices;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.floppywaste.sensor;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import com.github.floppywaste.base.CharSequences;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.io.CharSource;
+import com.google.common.io.LineProcessor;
+
+
+/**
+ * Streaming counterpart of the view pipeline in {@code Guava06_Compositions}: every line is read and parsed exactly
+ * once and folded into a {@link DeviceStatistics} of its device, so memory grows with the number of devices instead
+ * of the number of lines.
+ *
+ * <pre>
+ * Map&lt;String, Double&gt; averages = charSource.readLines(new SensorAggregator());
+ * </pre>
+ */
+public class SensorAggregator implements LineProcessor<Map<String, Double>> {
+
+    static final char SEPARATOR = ',';
+
+    private final DeviceDictionary dictionary;
+    private final Map<String, DeviceStatistics> statistics = Maps.newLinkedHashMap();
+    // the same statistics by device id, so that a row needs neither a substring nor a second hash lookup
+    private DeviceStatistics[] byId = new DeviceStatistics[16];
+
+    public SensorAggregator() {
+        this(DeviceDictionary.create());
+    }
+
+    /**
+     * Resolves device names through {@code dictionary}, e.g. one shared by all stages of a pipeline.
+     */
+    public SensorAggregator(final DeviceDictionary dictionary) {
+        this.dictionary = checkNotNull(dictionary);
+    }
+
+    public static Map<String, Double> averages(final CharSource source) throws IOException {
+        return source.readLines(new SensorAggregator());
+    }
+
+    @Override
+    public boolean processLine(final String line) {
+        if (line.isEmpty()) {
+            return true;
+        }
+        int firstSeparator = line.indexOf(SEPARATOR);
+        int lastSeparator = line.lastIndexOf(SEPARATOR);
+        if (firstSeparator < 0 || firstSeparator == lastSeparator) {
+            throw new IllegalArgumentException("expected device,timestamp,value but got: " + line);
+        }
+        int value = CharSequences.parseInt(line, lastSeparator + 1, line.length());
+        statisticsFor(dictionary.intern(line, 0, firstSeparator)).add(value);
+        return true;
+    }
+
+    private DeviceStatistics statisticsFor(final int device) {
+        if (device >= byId.length) {
+            byId = Arrays.copyOf(byId, Math.max(device + 1, byId.length * 2));
+        }
+        DeviceStatistics deviceStatistics = byId[device];
+        if (deviceStatistics == null) {
+            deviceStatistics = new DeviceStatistics();
+            byId[device] = deviceStatistics;
+            statistics.put(dictionary.name(device), deviceStatistics);
+        }
+        return deviceStatistics;
+    }
+
+    /**
+     * Live view of the accumulated statistics per device, in order of first appearance.
+     */
+    public Map<String, DeviceStatistics> getStatistics() {
+        return Collections.unmodifiableMap(statistics);
+    }
+
+    @Override
+    public Map<String, Double> getResult() {
+        return ImmutableMap.copyOf(Maps.transformValues(statistics, mean()));
+    }
+
+    static Function<DeviceStatistics, Double> mean() {
+        return new Function<DeviceStatistics, Double>() {
+
+            @Override
+            public Double apply(final DeviceStatistics input) {
+                return input.mean();
+            }
+        };
+    }
+}
@@ -0,0 +1,129 @@
+package com.github.floppywaste.sensor;
+
+import static com.google.common.base.Charsets.UTF_8;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Scans raw {@code device,timestamp,value} bytes for separators and line breaks and parses the value column straight
+ * from the bytes. The only allocations happen in {@link DeviceDictionary} when a new device shows up.
+ */
+final class SensorByteParser {
+
+    static final byte SEPARATOR = ',';
+    static final byte NEWLINE = '\n';
+    static final byte CARRIAGE_RETURN = '\r';
+
+    private SensorByteParser() {
+    }
+
+    /**
+     * Parses all lines in {@code [start, end)}. The range must begin at a line start; the last line may lack its line
+     * break.
+     */
+    static void parse(final ByteBuffer buffer, final int start, final int end, final DeviceTable devices) {
+        int lineStart = start;
+        while (lineStart < end) {
+            int lineEnd = indexOf(buffer, NEWLINE, lineStart, end);
+            int nextLine = lineEnd + 1;
+            if (lineEnd == -1) {
+                lineEnd = end;
+                nextLine = end;
+            }
+            if (lineEnd > lineStart && buffer.get(lineEnd - 1) == CARRIAGE_RETURN) {
+                lineEnd--;
+            }
+            if (lineEnd > lineStart) {
+                parseLine(buffer, lineStart, lineEnd, devices);
+            }
+            lineStart = nextLine;
+        }
+    }
+
+    private static void parseLine(final ByteBuffer buffer, final int start, final int end, final DeviceTable devices) {
+        int hash = 1;
+        int deviceEnd = start;
+        for (; deviceEnd < end; deviceEnd++) {
+            byte b = buffer.get(deviceEnd);
+            if (b == SEPARATOR) {
+                break;
+            }
+            hash = 31 * hash + b;
+        }
+        int valueStart = lastIndexOf(buffer, SEPARATOR, deviceEnd + 1, end) + 1;
+        if (deviceEnd == end || valueStart == 0) {
+            throw new IllegalArgumentException("expected device,timestamp,value but got: "
+                    + decode(buffer, start, end));
+        }
+        int value = parseInt(buffer, valueStart, end);
+        devices.statisticsFor(buffer, start, deviceEnd, hash).add(value);
+    }
+
+    /**
+     * Same contract as {@link Integer#parseInt(String)} for the ASCII bytes in {@code [start, end)}.
+     */
+    static int parseInt(final ByteBuffer buffer, final int start, final int end) {
+        int position = start;
+        boolean negative = false;
+        if (position < end) {
+            byte first = buffer.get(position);
+            if (first == '-' || first == '+') {
+                negative = first == '-';
+                position++;
+            }
+        }
+        if (position == end) {
+            throw numberFormat(buffer, start, end);
+        }
+        // accumulate negatively so that Integer.MIN_VALUE does not overflow
+        long result = 0;
+        for (; position < end; position++) {
+            int digit = buffer.get(position) - '0';
+            if (digit < 0 || digit > 9) {
+                throw numberFormat(buffer, start, end);
+            }
+            result = result * 10 - digit;
+            if (result < Integer.MIN_VALUE) {
+                throw numberFormat(buffer, start, end);
+            }
+        }
+        if (!negative) {
+            if (result == Integer.MIN_VALUE) {
+                throw numberFormat(buffer, start, end);
+            }
+            result = -result;
+        }
+        return (int) result;
+    }
+
+    static int indexOf(final ByteBuffer buffer, final byte target, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static int lastIndexOf(final ByteBuffer buffer, final byte target, final int start, final int end) {
+        for (int i = end - 1; i >= start; i--) {
+            if (buffer.get(i) == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static NumberFormatException numberFormat(final ByteBuffer buffer, final int start, final int end) {
+        return new NumberFormatException("For input string: \"" + decode(buffer, start, end) + "\"");
+    }
+
+    private static String decode(final ByteBuffer buffer, final int start, final int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, UTF_8);
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.floppywaste.sensor;
+
+import static com.github.floppywaste.sensor.SensorAggregator.SEPARATOR;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.github.floppywaste.base.CharSequences;
+import com.github.floppywaste.collect.IntColumn;
+import com.github.floppywaste.collect.IntMultimap;
+import com.google.common.io.CharSource;
+import com.google.common.io.LineProcessor;
+
+
+/**
+ * Groups the value column per device into an {@link IntMultimap}, the unboxed replacement of the
+ * {@code Multimaps.index} and {@code Multimaps.transformValues} steps of {@code Guava06_Compositions}. Unlike
+ * {@link SensorAggregator} it keeps every reading, so percentiles can be computed afterwards.
+ */
+public class SensorColumns implements LineProcessor<IntMultimap<String>> {
+
+    private final DeviceDictionary dictionary;
+    private final IntMultimap<String> valuesPerDevice = IntMultimap.create();
+    // the same columns by device id, so that a row needs neither a substring nor a hash lookup by name
+    private IntColumn[] byId = new IntColumn[16];
+
+    public SensorColumns() {
+        this(DeviceDictionary.create());
+    }
+
+    /**
+     * Resolves device names through {@code dictionary}, e.g. one shared by all stages of a pipeline.
+     */
+    public SensorColumns(final DeviceDictionary dictionary) {
+        this.dictionary = checkNotNull(dictionary);
+    }
+
+    public static IntMultimap<String> valuesPerDevice(final CharSource source) throws IOException {
+        return source.readLines(new SensorColumns());
+    }
+
+    @Override
+    public boolean processLine(final String line) {
+        if (line.isEmpty()) {
+            return true;
+        }
+        int firstSeparator = line.indexOf(SEPARATOR);
+        int lastSeparator = line.lastIndexOf(SEPARATOR);
+        if (firstSeparator < 0 || firstSeparator == lastSeparator) {
+            throw new IllegalArgumentException("expected device,timestamp,value but got: " + line);
+        }
+        int value = CharSequences.parseInt(line, lastSeparator + 1, line.length());
+        int device = dictionary.intern(line, 0, firstSeparator);
+        if (device >= byId.length) {
+            byId = Arrays.copyOf(byId, Math.max(device + 1, byId.length * 2));
+        }
+        IntColumn column = byId[device];
+        if (column == null) {
+            // the first value creates the key, from then on its live column is appended to directly
+            String name = dictionary.name(device);
+            valuesPerDevice.put(name, value);
+            byId[device] = valuesPerDevice.get(name);
+        } else {
+            column.add(value);
+        }
+        return true;
+    }
+
+    @Override
+    public IntMultimap<String> getResult() {
+        return valuesPerDevice;
+    }
+}
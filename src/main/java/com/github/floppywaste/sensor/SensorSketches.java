@@ -0,0 +1,134 @@
+package com.github.floppywaste.sensor;
+
+import static com.github.floppywaste.sensor.SensorAggregator.SEPARATOR;
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import com.github.floppywaste.base.CharSequences;
+import com.github.floppywaste.math.HyperLogLog;
+import com.github.floppywaste.math.QuantileSketch;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hasher;
+import com.google.common.io.LineProcessor;
+
+
+/**
+ * {@link LineProcessor}s that answer with fixed-size sketches instead of exact, ever growing collections: the number
+ * of distinct devices as a {@link HyperLogLog} instead of a {@code Set<String>} of all names, and the value
+ * distribution per device as a {@link QuantileSketch} instead of all values. The results of several files merge:
+ *
+ * <pre>
+ * HyperLogLog devices = first.readLines(SensorSketches.distinctDevices());
+ * devices.merge(second.readLines(SensorSketches.distinctDevices()));
+ * </pre>
+ *
+ * See the sketches for their error bounds.
+ */
+public final class SensorSketches {
+
+    private SensorSketches() {
+    }
+
+    public static LineProcessor<HyperLogLog> distinctDevices() {
+        return distinctDevices(HyperLogLog.DEFAULT_PRECISION);
+    }
+
+    /**
+     * Counts the distinct values of the first column, hashing them straight from the line.
+     */
+    public static LineProcessor<HyperLogLog> distinctDevices(final int precision) {
+        final HyperLogLog result = HyperLogLog.create(precision);
+        return new LineProcessor<HyperLogLog>() {
+
+            @Override
+            public boolean processLine(final String line) {
+                if (line.isEmpty()) {
+                    return true;
+                }
+                int deviceEnd = line.indexOf(SEPARATOR);
+                if (deviceEnd < 0) {
+                    throw new IllegalArgumentException("expected device,timestamp,value but got: " + line);
+                }
+                // same hash as HyperLogLog.add(CharSequence) of the device name
+                Hasher hasher = HyperLogLog.hashFunction().newHasher();
+                for (int i = 0; i < deviceEnd; i++) {
+                    hasher.putChar(line.charAt(i));
+                }
+                result.addHash(hasher.hash().asLong());
+                return true;
+            }
+
+            @Override
+            public HyperLogLog getResult() {
+                return result;
+            }
+        };
+    }
+
+    public static LineProcessor<Map<String, QuantileSketch>> quantilesPerDevice() {
+        return quantilesPerDevice(QuantileSketch.DEFAULT_K);
+    }
+
+    /**
+     * Sketches the value column per device, in order of first appearance.
+     */
+    public static LineProcessor<Map<String, QuantileSketch>> quantilesPerDevice(final int k) {
+        checkArgument(k >= QuantileSketch.MIN_K, "k must be at least %s: %s", QuantileSketch.MIN_K, k);
+        return new LineProcessor<Map<String, QuantileSketch>>() {
+
+            final Map<String, QuantileSketch> result = Maps.newLinkedHashMap();
+            final DeviceDictionary dictionary = DeviceDictionary.create();
+            QuantileSketch[] sketches = new QuantileSketch[16];
+
+            @Override
+            public boolean processLine(final String line) {
+                if (line.isEmpty()) {
+                    return true;
+                }
+                int firstSeparator = line.indexOf(SEPARATOR);
+                int lastSeparator = line.lastIndexOf(SEPARATOR);
+                if (firstSeparator < 0 || firstSeparator == lastSeparator) {
+                    throw new IllegalArgumentException("expected device,timestamp,value but got: " + line);
+                }
+                int value = CharSequences.parseInt(line, lastSeparator + 1, line.length());
+                sketchFor(dictionary.intern(line, 0, firstSeparator)).add(value);
+                return true;
+            }
+
+            private QuantileSketch sketchFor(final int device) {
+                if (device == sketches.length) {
+                    sketches = Arrays.copyOf(sketches, device * 2);
+                }
+                QuantileSketch sketch = sketches[device];
+                if (sketch == null) {
+                    sketch = QuantileSketch.create(k);
+                    sketches[device] = sketch;
+                    result.put(dictionary.name(device), sketch);
+                }
+                return sketch;
+            }
+
+            @Override
+            public Map<String, QuantileSketch> getResult() {
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Merges the sketches of {@code from} into those of the same devices in {@code into}, adding devices that are
+     * new.
+     */
+    public static void mergeInto(final Map<String, QuantileSketch> into, final Map<String, QuantileSketch> from) {
+        for (Map.Entry<String, QuantileSketch> entry : from.entrySet()) {
+            QuantileSketch sketch = into.get(entry.getKey());
+            if (sketch == null) {
+                sketch = QuantileSketch.create(entry.getValue().k());
+                into.put(entry.getKey(), sketch);
+            }
+            sketch.merge(entry.getValue());
+        }
+    }
+}
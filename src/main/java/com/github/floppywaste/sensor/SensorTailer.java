@@ -0,0 +1,221 @@
+package com.github.floppywaste.sensor;
+
+import static com.github.floppywaste.sensor.SensorByteParser.NEWLINE;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+
+/**
+ * Follows a {@code device,timestamp,value} file that keeps growing, like {@code tail -f}. Every {@link #refresh()}
+ * parses only the bytes appended since the last one and adds them to statistics that live as long as the tailer, so
+ * keeping the averages up to date costs O(new bytes) instead of O(file size).
+ *
+ * <p>A trailing line without its line break is left alone until the rest of it arrives. When the file is rotated
+ * (moved away and replaced by a new one), the rest of the old file is still read through the open channel before the
+ * tailer switches to the new file; only an unterminated last line of the old file is dropped. When the file is
+ * truncated in place, reading starts over from its beginning; rows that were appended and truncated between two
+ * refreshes are lost. Either way the statistics keep accumulating across files until {@link #reset()}.
+ *
+ * <pre>
+ * SensorTailer tailer = SensorTailer.of(file);
+ * while (running) {
+ *     tailer.refresh();
+ *     show(tailer.averages());
+ * }
+ * </pre>
+ *
+ * <p>Instances are not thread safe.
+ */
+public final class SensorTailer implements Closeable {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+    // enough of the head of a file to tell it from a file that was truncated and written again between two refreshes
+    static final int FINGERPRINT_SIZE = 64;
+
+    private final Path path;
+    private DeviceTable devices = new DeviceTable();
+    private ByteBuffer buffer;
+
+    private FileChannel channel;
+    private Object fileKey;
+    private long offset;
+    private final ByteBuffer fingerprint = ByteBuffer.allocate(FINGERPRINT_SIZE);
+    private final ByteBuffer head = ByteBuffer.allocate(FINGERPRINT_SIZE);
+
+    SensorTailer(final File file, final int bufferSize) {
+        checkArgument(bufferSize > 0, "bufferSize must be positive: %s", bufferSize);
+        this.path = checkNotNull(file).toPath();
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        fingerprint.limit(0);
+    }
+
+    /**
+     * Tails {@code file} from its beginning. The file does not need to exist yet.
+     */
+    public static SensorTailer of(final File file) {
+        return new SensorTailer(file, BUFFER_SIZE);
+    }
+
+    /**
+     * Adds every complete line appended since the last call to the statistics.
+     *
+     * @return the number of bytes parsed
+     */
+    public long refresh() throws IOException {
+        long parsed = 0;
+        if (channel != null && !current()) {
+            // rotated: finish the old file first, its channel still reads it after the move
+            parsed += readToEnd();
+            closeChannel();
+        }
+        if (channel == null && !openChannel()) {
+            return parsed;
+        }
+        if (channel.size() < offset || !fingerprintMatches()) {
+            offset = 0;
+            fingerprint.limit(0);
+        }
+        return parsed + readToEnd();
+    }
+
+    /**
+     * The byte offset up to which the current file has been parsed; always at a line start.
+     */
+    public long offset() {
+        return offset;
+    }
+
+    public Map<String, Double> averages() {
+        return ImmutableMap.copyOf(Maps.transformValues(devices.toMap(), SensorAggregator.mean()));
+    }
+
+    /**
+     * Copies of the accumulated statistics per device, in order of first appearance.
+     */
+    public Map<String, DeviceStatistics> statistics() {
+        ImmutableMap.Builder<String, DeviceStatistics> result = ImmutableMap.builder();
+        for (Map.Entry<String, DeviceStatistics> entry : devices.toMap().entrySet()) {
+            DeviceStatistics copy = new DeviceStatistics();
+            copy.merge(entry.getValue());
+            result.put(entry.getKey(), copy);
+        }
+        return result.build();
+    }
+
+    /**
+     * Forgets the accumulated statistics; the file position is kept, so only rows appended from now on are counted.
+     */
+    public void reset() {
+        devices = new DeviceTable(devices.dictionary());
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeChannel();
+    }
+
+    private boolean openChannel() throws IOException {
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        fileKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        offset = 0;
+        fingerprint.limit(0);
+        return true;
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            FileChannel closing = channel;
+            channel = null;
+            closing.close();
+        }
+    }
+
+    /*
+     * Whether the path still names the file that is open. Without file keys (some file systems have none) rotation
+     * can only be told by truncation and the fingerprint.
+     */
+    private boolean current() throws IOException {
+        try {
+            Object key = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+            return key == null || Objects.equal(key, fileKey);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private boolean fingerprintMatches() throws IOException {
+        if (fingerprint.limit() == 0) {
+            return true;
+        }
+        head.clear().limit(fingerprint.limit());
+        readFully(head, 0);
+        head.flip();
+        return head.equals(fingerprint);
+    }
+
+    private long readToEnd() throws IOException {
+        long start = offset;
+        long size = channel.size();
+        while (offset < size) {
+            buffer.clear();
+            int filled = readFully(buffer, offset);
+            int parseEnd = SensorByteParser.lastIndexOf(buffer, NEWLINE, 0, filled) + 1;
+            if (parseEnd == 0) {
+                if (filled < buffer.capacity()) {
+                    // only a partial line is left
+                    break;
+                }
+                // a single line does not fit, so grow instead of splitting it
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                continue;
+            }
+            rememberFingerprint(filled);
+            SensorByteParser.parse(buffer, 0, parseEnd, devices);
+            offset += parseEnd;
+        }
+        return offset - start;
+    }
+
+    private void rememberFingerprint(final int filled) {
+        if (offset < FINGERPRINT_SIZE && fingerprint.limit() < FINGERPRINT_SIZE) {
+            int length = (int) Math.min(FINGERPRINT_SIZE - offset, filled);
+            fingerprint.clear().position((int) offset);
+            for (int i = 0; i < length; i++) {
+                fingerprint.put(buffer.get(i));
+            }
+            fingerprint.flip();
+        }
+    }
+
+    /*
+     * Reads from position until the buffer is full or the file ends, and returns the number of bytes in the buffer.
+     */
+    private int readFully(final ByteBuffer target, final long position) throws IOException {
+        while (target.hasRemaining()) {
+            if (channel.read(target, position + target.position()) < 0) {
+                break;
+            }
+        }
+        return target.position();
+    }
+}
@@ -0,0 +1,354 @@
+package com.github.floppywaste.sensor;
+
+import static com.github.floppywaste.sensor.SensorAggregator.SEPARATOR;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.github.floppywaste.base.CharSequences;
+import com.github.floppywaste.sensor.ColumnarSensorFile.RowHandler;
+import com.google.common.io.LineProcessor;
+
+
+/**
+ * The readings of every device as parallel primitive arrays of timestamps and values, sorted by timestamp, so that
+ * "device X between 12:15 and 12:45" takes two binary searches instead of a scan of all rows. Count and sum of a range
+ * come from prefix sums, min and max from summaries of blocks of {@value #BLOCK_SIZE} readings, of blocks of those
+ * summaries, and so on, in {@code O(log n)}.
+ *
+ * <pre>
+ * TimeRangeIndex index = charSource.readLines(TimeRangeIndex.create().appender());
+ * DeviceStatistics halfHour = index.statistics("Sensor A", from, from + MINUTES.toMillis(30));
+ * </pre>
+ *
+ * Ranges are {@code from <= timestamp < to} in epoch millis, as in {@link ColumnarSensorFile#statistics(long, long)}.
+ * A reading appended in timestamp order of its device costs amortized {@code O(log n)}; an older one is inserted in
+ * place and the readings behind it are summarized again. Queries may run from any number of threads, also while
+ * readings are added.
+ */
+public final class TimeRangeIndex {
+
+    static final int BLOCK_SIZE = 64;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final DeviceDictionary dictionary;
+    private final Lock readLock;
+    private final Lock writeLock;
+    private Series[] series = new Series[INITIAL_CAPACITY];
+    private long size;
+
+    private TimeRangeIndex(final DeviceDictionary dictionary) {
+        this.dictionary = dictionary;
+        ReadWriteLock lock = new ReentrantReadWriteLock();
+        this.readLock = lock.readLock();
+        this.writeLock = lock.writeLock();
+    }
+
+    public static TimeRangeIndex create() {
+        return new TimeRangeIndex(DeviceDictionary.create());
+    }
+
+    /**
+     * Keys the devices on the ids of {@code dictionary}, e.g. one shared with the other stages of a pipeline.
+     */
+    public static TimeRangeIndex create(final DeviceDictionary dictionary) {
+        return new TimeRangeIndex(checkNotNull(dictionary));
+    }
+
+    public DeviceDictionary dictionary() {
+        return dictionary;
+    }
+
+    public void add(final CharSequence device, final long timestamp, final int value) {
+        add(dictionary.intern(device), timestamp, value);
+    }
+
+    /**
+     * Adds a reading of the device with id {@code device} in the {@link #dictionary()}.
+     */
+    public void add(final int device, final long timestamp, final int value) {
+        checkElementIndex(device, dictionary.size());
+        writeLock.lock();
+        try {
+            if (device >= series.length) {
+                series = Arrays.copyOf(series, Math.max(device + 1, series.length * 2));
+            }
+            if (series[device] == null) {
+                series[device] = new Series();
+            }
+            series[device].add(timestamp, value);
+            size++;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Adds the rows of {@code device,timestamp,value} lines; the result is this index.
+     */
+    public LineProcessor<TimeRangeIndex> appender() {
+        return new LineProcessor<TimeRangeIndex>() {
+
+            @Override
+            public boolean processLine(final String line) {
+                if (line.isEmpty()) {
+                    return true;
+                }
+                int firstSeparator = line.indexOf(SEPARATOR);
+                int lastSeparator = line.lastIndexOf(SEPARATOR);
+                if (firstSeparator < 0 || firstSeparator == lastSeparator) {
+                    throw new IllegalArgumentException("expected device,timestamp,value but got: " + line);
+                }
+                long timestamp = Timestamps.parseEpochMillis(line, firstSeparator + 1, lastSeparator);
+                int value = CharSequences.parseInt(line, lastSeparator + 1, line.length());
+                add(dictionary.intern(line, 0, firstSeparator), timestamp, value);
+                return true;
+            }
+
+            @Override
+            public TimeRangeIndex getResult() {
+                return TimeRangeIndex.this;
+            }
+        };
+    }
+
+    /**
+     * The number of readings of all devices.
+     */
+    public long size() {
+        readLock.lock();
+        try {
+            return size;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * The statistics of the readings of {@code device} in {@code [from, to)}; no readings yield empty statistics.
+     */
+    public DeviceStatistics statistics(final CharSequence device, final long from, final long to) {
+        checkArgument(from <= to, "from %s is after to %s", from, to);
+        int id = dictionary.find(device, 0, device.length());
+        return id < 0 ? new DeviceStatistics() : statistics(id, from, to);
+    }
+
+    public DeviceStatistics statistics(final int device, final long from, final long to) {
+        checkArgument(from <= to, "from %s is after to %s", from, to);
+        readLock.lock();
+        try {
+            Series readings = seriesOf(device);
+            return readings == null ? new DeviceStatistics() : readings.statistics(from, to);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Hands the readings of {@code device} in {@code [from, to)} to {@code handler} in timestamp order. The index is
+     * locked for additions meanwhile, so the handler should be quick and must not add readings itself.
+     */
+    public void scan(final int device, final long from, final long to, final RowHandler handler) {
+        checkArgument(from <= to, "from %s is after to %s", from, to);
+        readLock.lock();
+        try {
+            Series readings = seriesOf(device);
+            if (readings != null) {
+                readings.scan(device, from, to, handler);
+            }
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private Series seriesOf(final int device) {
+        checkElementIndex(device, dictionary.size());
+        return device < series.length ? series[device] : null;
+    }
+
+    /*
+     * The readings of one device. mins[k][i] and maxs[k][i] summarize the entries [i * BLOCK_SIZE, (i + 1) *
+     * BLOCK_SIZE) of the level below, where the level below 0 are the values themselves; the last entry of a level
+     * may cover a partial block. A range query scans at most a block at either edge per level and moves up to the
+     * summaries of the blocks in between.
+     */
+    private static final class Series {
+        long[] timestamps = new long[INITIAL_CAPACITY];
+        int[] values = new int[INITIAL_CAPACITY];
+        // prefixSums[i] is the sum of values[0, i)
+        long[] prefixSums = new long[INITIAL_CAPACITY + 1];
+        int[][] mins = new int[0][];
+        int[][] maxs = new int[0][];
+        int size;
+
+        void add(final long timestamp, final int value) {
+            if (size == timestamps.length) {
+                grow();
+            }
+            if (size == 0 || timestamp >= timestamps[size - 1]) {
+                timestamps[size] = timestamp;
+                values[size] = value;
+                prefixSums[size + 1] = prefixSums[size] + value;
+                size++;
+                summarizeLast(value);
+            } else {
+                // behind any readings with the same timestamp, as if it had been appended in order
+                int position = upperBound(timestamp);
+                System.arraycopy(timestamps, position, timestamps, position + 1, size - position);
+                System.arraycopy(values, position, values, position + 1, size - position);
+                timestamps[position] = timestamp;
+                values[position] = value;
+                size++;
+                for (int i = position; i < size; i++) {
+                    prefixSums[i + 1] = prefixSums[i] + values[i];
+                }
+                summarize(position);
+            }
+        }
+
+        DeviceStatistics statistics(final long from, final long to) {
+            int lo = lowerBound(from);
+            int hi = lowerBound(to);
+            if (lo >= hi) {
+                return new DeviceStatistics();
+            }
+            int count = hi - lo;
+            long sum = prefixSums[hi] - prefixSums[lo];
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int level = -1;; level++) {
+                int up = (lo + BLOCK_SIZE - 1) / BLOCK_SIZE;
+                int down = hi / BLOCK_SIZE;
+                if (level + 1 == mins.length || up >= down) {
+                    min = Math.min(min, min(level, lo, hi));
+                    max = Math.max(max, max(level, lo, hi));
+                    break;
+                }
+                min = Math.min(min, Math.min(min(level, lo, up * BLOCK_SIZE), min(level, down * BLOCK_SIZE, hi)));
+                max = Math.max(max, Math.max(max(level, lo, up * BLOCK_SIZE), max(level, down * BLOCK_SIZE, hi)));
+                lo = up;
+                hi = down;
+            }
+            return DeviceStatistics.of(count, sum, min, max);
+        }
+
+        void scan(final int device, final long from, final long to, final RowHandler handler) {
+            for (int i = lowerBound(from), end = lowerBound(to); i < end; i++) {
+                handler.row(device, timestamps[i], values[i]);
+            }
+        }
+
+        private int min(final int level, final int from, final int to) {
+            int[] entries = level < 0 ? values : mins[level];
+            int result = Integer.MAX_VALUE;
+            for (int i = from; i < to; i++) {
+                result = Math.min(result, entries[i]);
+            }
+            return result;
+        }
+
+        private int max(final int level, final int from, final int to) {
+            int[] entries = level < 0 ? values : maxs[level];
+            int result = Integer.MIN_VALUE;
+            for (int i = from; i < to; i++) {
+                result = Math.max(result, entries[i]);
+            }
+            return result;
+        }
+
+        /*
+         * Folds the value just appended at size - 1 into the last entry of every level, or starts a new entry.
+         */
+        private void summarizeLast(final int value) {
+            int below = size - 1;
+            boolean starts = true;
+            for (int level = 0; level < mins.length; level++) {
+                starts &= below % BLOCK_SIZE == 0;
+                int entry = below / BLOCK_SIZE;
+                if (starts) {
+                    mins[level][entry] = value;
+                    maxs[level][entry] = value;
+                } else {
+                    mins[level][entry] = Math.min(mins[level][entry], value);
+                    maxs[level][entry] = Math.max(maxs[level][entry], value);
+                }
+                below = entry;
+            }
+        }
+
+        /*
+         * Recomputes every summary that covers a reading at or behind position.
+         */
+        private void summarize(final int position) {
+            int lo = position;
+            int hi = size;
+            for (int level = 0; level < mins.length; level++) {
+                int first = lo / BLOCK_SIZE;
+                int last = (hi + BLOCK_SIZE - 1) / BLOCK_SIZE;
+                for (int entry = first; entry < last; entry++) {
+                    int from = entry * BLOCK_SIZE;
+                    int to = Math.min(from + BLOCK_SIZE, hi);
+                    mins[level][entry] = min(level - 1, from, to);
+                    maxs[level][entry] = max(level - 1, from, to);
+                }
+                lo = first;
+                hi = last;
+            }
+        }
+
+        private void grow() {
+            int capacity = timestamps.length * 2;
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            values = Arrays.copyOf(values, capacity);
+            prefixSums = Arrays.copyOf(prefixSums, capacity + 1);
+            // a level is worth keeping once it can hold more than one entry
+            int levels = 0;
+            for (long span = BLOCK_SIZE; span < capacity; span *= BLOCK_SIZE) {
+                levels++;
+            }
+            mins = new int[levels][];
+            maxs = new int[levels][];
+            long span = BLOCK_SIZE;
+            for (int level = 0; level < levels; level++, span *= BLOCK_SIZE) {
+                mins[level] = new int[(int) ((capacity + span - 1) / span)];
+                maxs[level] = new int[mins[level].length];
+            }
+            summarize(0);
+        }
+
+        // the first index whose timestamp is at least timestamp
+        private int lowerBound(final long timestamp) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int middle = (lo + hi) >>> 1;
+                if (timestamps[middle] < timestamp) {
+                    lo = middle + 1;
+                } else {
+                    hi = middle;
+                }
+            }
+            return lo;
+        }
+
+        // the first index whose timestamp is greater than timestamp
+        private int upperBound(final long timestamp) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int middle = (lo + hi) >>> 1;
+                if (timestamps[middle] <= timestamp) {
+                    lo = middle + 1;
+                } else {
+                    hi = middle;
+                }
+            }
+            return lo;
+        }
+    }
+}
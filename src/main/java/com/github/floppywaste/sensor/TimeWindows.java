@@ -0,0 +1,80 @@
+package com.github.floppywaste.sensor;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.MoreObjects;
+
+
+/**
+ * Immutable description of the time windows to roll readings up into, like {@code Splitter} describes how to split:
+ *
+ * <pre>
+ * TimeWindows.tumbling(1, HOURS)                              // 12:00-13:00, 13:00-14:00, ...
+ * TimeWindows.sliding(1, HOURS, 15, MINUTES)                  // 12:00-13:00, 12:15-13:15, ...
+ * TimeWindows.tumbling(15, MINUTES).allowedLateness(5, MINUTES)
+ * </pre>
+ *
+ * Windows are aligned to the epoch in UTC, so daily windows start at midnight UTC. The size of a sliding window must
+ * be a multiple of its slide.
+ */
+public final class TimeWindows {
+
+    private final long sizeMillis;
+    private final long slideMillis;
+    private final long latenessMillis;
+
+    private TimeWindows(final long sizeMillis, final long slideMillis, final long latenessMillis) {
+        checkArgument(sizeMillis > 0 && slideMillis > 0, "windows must not be empty");
+        checkArgument(sizeMillis % slideMillis == 0, "size %s is not a multiple of the slide %s", sizeMillis,
+                slideMillis);
+        checkArgument(latenessMillis >= 0, "lateness must not be negative: %s", latenessMillis);
+        this.sizeMillis = sizeMillis;
+        this.slideMillis = slideMillis;
+        this.latenessMillis = latenessMillis;
+    }
+
+    public static TimeWindows tumbling(final long size, final TimeUnit unit) {
+        return new TimeWindows(unit.toMillis(size), unit.toMillis(size), 0);
+    }
+
+    public static TimeWindows sliding(final long size, final TimeUnit sizeUnit, final long slide,
+            final TimeUnit slideUnit) {
+        return new TimeWindows(sizeUnit.toMillis(size), slideUnit.toMillis(slide), 0);
+    }
+
+    /**
+     * Accepts rows up to {@code lateness} older than the newest row of their device; a window is closed only once
+     * the newest row is {@code lateness} past its end. Older rows are dropped and counted. The default is no lateness:
+     * rows must come in order per device.
+     */
+    public TimeWindows allowedLateness(final long lateness, final TimeUnit unit) {
+        return new TimeWindows(sizeMillis, slideMillis, unit.toMillis(lateness));
+    }
+
+    public long sizeMillis() {
+        return sizeMillis;
+    }
+
+    public long slideMillis() {
+        return slideMillis;
+    }
+
+    public long latenessMillis() {
+        return latenessMillis;
+    }
+
+    /**
+     * A new, empty aggregator over these windows.
+     */
+    public WindowedAggregator aggregator() {
+        return new WindowedAggregator(this);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("size", sizeMillis).add("slide", slideMillis)
+                .add("lateness", latenessMillis).toString();
+    }
+}
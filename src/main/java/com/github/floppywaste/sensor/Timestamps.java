@@ -0,0 +1,87 @@
+package com.github.floppywaste.sensor;
+
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+
+/**
+ * Parses the timestamp column ({@code 2015-02-13 12:15}, optionally with seconds) straight from a range of the line,
+ * without {@code SimpleDateFormat}, {@code DateTimeFormatter} or a substring. Timestamps carry no zone and are read as
+ * UTC.
+ */
+public final class Timestamps {
+
+    private static final int MINUTE_LENGTH = "yyyy-MM-dd HH:mm".length();
+    private static final int SECOND_LENGTH = "yyyy-MM-dd HH:mm:ss".length();
+
+    private Timestamps() {
+    }
+
+    /**
+     * Milliseconds since the epoch of {@code yyyy-MM-dd HH:mm} or {@code yyyy-MM-dd HH:mm:ss} in {@code [start, end)};
+     * a {@code 'T'} instead of the blank is accepted as well.
+     *
+     * @throws IllegalArgumentException if the range is not such a timestamp or not a valid date and time
+     */
+    public static long parseEpochMillis(final CharSequence chars, final int start, final int end) {
+        checkPositionIndexes(start, end, chars.length());
+        int length = end - start;
+        if ((length != MINUTE_LENGTH && length != SECOND_LENGTH)
+                || chars.charAt(start + 4) != '-' || chars.charAt(start + 7) != '-'
+                || (chars.charAt(start + 10) != ' ' && chars.charAt(start + 10) != 'T')
+                || chars.charAt(start + 13) != ':' || (length == SECOND_LENGTH && chars.charAt(start + 16) != ':')) {
+            throw invalid(chars, start, end);
+        }
+        int year = digits(chars, start, 4);
+        int month = digits(chars, start + 5, 2);
+        int day = digits(chars, start + 8, 2);
+        int hour = digits(chars, start + 11, 2);
+        int minute = digits(chars, start + 14, 2);
+        int second = length == SECOND_LENGTH ? digits(chars, start + 17, 2) : 0;
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month) || hour < 0
+                || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            throw invalid(chars, start, end);
+        }
+        long seconds = ((daysSinceEpoch(year, month, day) * 24 + hour) * 60 + minute) * 60 + second;
+        return seconds * 1000;
+    }
+
+    /*
+     * Days from civil date in the proleptic Gregorian calendar, counting years from March so that the leap day comes
+     * last.
+     */
+    static long daysSinceEpoch(final int year, final int month, final int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static int lengthOfMonth(final int year, final int month) {
+        if (month == 2) {
+            boolean leap = year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+            return leap ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    /*
+     * -1 if any of the chars is not a digit.
+     */
+    private static int digits(final CharSequence chars, final int start, final int count) {
+        int result = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = chars.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    private static IllegalArgumentException invalid(final CharSequence chars, final int start, final int end) {
+        return new IllegalArgumentException("expected yyyy-MM-dd HH:mm but got: " + chars.subSequence(start, end));
+    }
+}
@@ -0,0 +1,205 @@
+package com.github.floppywaste.sensor;
+
+import static com.github.floppywaste.sensor.SensorAggregator.SEPARATOR;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import com.github.floppywaste.base.CharSequences;
+import com.google.common.collect.ImmutableTable;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Table;
+import com.google.common.collect.Tables;
+import com.google.common.io.LineProcessor;
+
+
+/**
+ * Rolls {@code device,timestamp,value} rows up into the {@link TimeWindows} of every device, e.g. the hourly average
+ * per device for a dashboard. The result is a table from device and window start (epoch millis) to the average:
+ *
+ * <pre>
+ * Table&lt;String, Long, Double&gt; hourly = charSource.readLines(TimeWindows.tumbling(1, HOURS).aggregator());
+ * </pre>
+ *
+ * Each device keeps a ring of panes, one {@link DeviceStatistics} per slide, that covers just the windows still open.
+ * A row is parsed without allocating and added to a single pane; a window is combined from its panes once when it
+ * closes, so sliding windows do not multiply the work per row. Closed windows are kept until the end.
+ */
+public final class WindowedAggregator implements LineProcessor<Table<String, Long, Double>> {
+
+    private final long slide;
+    private final long lateness;
+    private final int panesPerWindow;
+    private final int ringSize;
+
+    // ids are assigned in order of first appearance, so the windows by id are in that order too
+    private final DeviceDictionary dictionary = DeviceDictionary.create();
+    private DeviceWindows[] devices = new DeviceWindows[16];
+    private long droppedRows;
+
+    WindowedAggregator(final TimeWindows windows) {
+        this.slide = windows.slideMillis();
+        this.lateness = windows.latenessMillis();
+        this.panesPerWindow = (int) (windows.sizeMillis() / slide);
+        // the panes of the oldest open window, up to the newest pane that late rows may still reach
+        this.ringSize = panesPerWindow + (int) ((lateness + slide - 1) / slide) + 1;
+    }
+
+    @Override
+    public boolean processLine(final String line) {
+        if (line.isEmpty()) {
+            return true;
+        }
+        int firstSeparator = line.indexOf(SEPARATOR);
+        int lastSeparator = line.lastIndexOf(SEPARATOR);
+        if (firstSeparator < 0 || firstSeparator == lastSeparator) {
+            throw new IllegalArgumentException("expected device,timestamp,value but got: " + line);
+        }
+        long timestamp = Timestamps.parseEpochMillis(line, firstSeparator + 1, lastSeparator);
+        int value = CharSequences.parseInt(line, lastSeparator + 1, line.length());
+        windowsFor(dictionary.intern(line, 0, firstSeparator)).add(timestamp, value);
+        return true;
+    }
+
+    private DeviceWindows windowsFor(final int device) {
+        if (device == devices.length) {
+            devices = Arrays.copyOf(devices, device * 2);
+        }
+        DeviceWindows windows = devices[device];
+        if (windows == null) {
+            windows = new DeviceWindows();
+            devices[device] = windows;
+        }
+        return windows;
+    }
+
+    /**
+     * Rows that came later than the allowed lateness and were left out.
+     */
+    public long droppedRows() {
+        return droppedRows;
+    }
+
+    /**
+     * The windows that can no longer change, per device and window start.
+     */
+    public Table<String, Long, DeviceStatistics> closedWindows() {
+        return statistics(false);
+    }
+
+    /**
+     * All windows with readings so far, including the open ones as they are now.
+     */
+    public Table<String, Long, DeviceStatistics> getStatistics() {
+        return statistics(true);
+    }
+
+    @Override
+    public Table<String, Long, Double> getResult() {
+        return ImmutableTable.copyOf(Tables.transformValues(getStatistics(), SensorAggregator.mean()));
+    }
+
+    private Table<String, Long, DeviceStatistics> statistics(final boolean includeOpen) {
+        ImmutableTable.Builder<String, Long, DeviceStatistics> result = ImmutableTable.builder();
+        for (int device = 0; device < dictionary.size(); device++) {
+            String name = dictionary.name(device);
+            for (Map.Entry<Long, DeviceStatistics> window : devices[device].closed.entrySet()) {
+                result.put(name, window.getKey(), window.getValue());
+            }
+            if (includeOpen) {
+                devices[device].putOpen(name, result);
+            }
+        }
+        return result.build();
+    }
+
+    private final class DeviceWindows {
+
+        // pane i covers [i * slide, (i + 1) * slide) and lives in slot floorMod(i, ringSize) while it is in use
+        private final long[] paneIndexes = new long[ringSize];
+        private final DeviceStatistics[] panes = new DeviceStatistics[ringSize];
+        private int occupiedPanes;
+
+        private final Map<Long, DeviceStatistics> closed = Maps.newLinkedHashMap();
+        private long newest = Long.MIN_VALUE;
+        // window i covers the panes [i, i + panesPerWindow)
+        private long nextWindow;
+
+        DeviceWindows() {
+            for (int slot = 0; slot < ringSize; slot++) {
+                panes[slot] = new DeviceStatistics();
+            }
+        }
+
+        void add(final long timestamp, final int value) {
+            if (newest == Long.MIN_VALUE) {
+                nextWindow = Math.floorDiv(timestamp - lateness, slide) - panesPerWindow + 1;
+            } else if (timestamp < newest - lateness) {
+                droppedRows++;
+                return;
+            }
+            if (timestamp > newest) {
+                newest = timestamp;
+                closeWindows(timestamp - lateness);
+            }
+            long pane = Math.floorDiv(timestamp, slide);
+            int slot = slot(pane);
+            if (panes[slot].count() == 0) {
+                paneIndexes[slot] = pane;
+                occupiedPanes++;
+            }
+            panes[slot].add(value);
+        }
+
+        private void closeWindows(final long watermark) {
+            while ((nextWindow + panesPerWindow) * slide <= watermark) {
+                if (occupiedPanes == 0) {
+                    // nothing left to close, skip the gap at once
+                    nextWindow = Math.floorDiv(watermark, slide) - panesPerWindow + 1;
+                    return;
+                }
+                DeviceStatistics window = combine(nextWindow);
+                if (window != null) {
+                    closed.put(nextWindow * slide, window);
+                }
+                // no later window needs the first pane of this one
+                int slot = slot(nextWindow);
+                if (panes[slot].count() > 0 && paneIndexes[slot] == nextWindow) {
+                    panes[slot].clear();
+                    occupiedPanes--;
+                }
+                nextWindow++;
+            }
+        }
+
+        void putOpen(final String device, final ImmutableTable.Builder<String, Long, DeviceStatistics> result) {
+            for (long window = nextWindow; window <= Math.floorDiv(newest, slide); window++) {
+                DeviceStatistics statistics = combine(window);
+                if (statistics != null) {
+                    result.put(device, window * slide, statistics);
+                }
+            }
+        }
+
+        /*
+         * null if none of the panes of the window has readings.
+         */
+        private DeviceStatistics combine(final long window) {
+            DeviceStatistics result = null;
+            for (long pane = window; pane < window + panesPerWindow; pane++) {
+                int slot = slot(pane);
+                if (panes[slot].count() > 0 && paneIndexes[slot] == pane) {
+                    if (result == null) {
+                        result = new DeviceStatistics();
+                    }
+                    result.merge(panes[slot]);
+                }
+            }
+            return result;
+        }
+
+        private int slot(final long pane) {
+            return (int) Math.floorMod(pane, (long) ringSize);
+        }
+    }
+}
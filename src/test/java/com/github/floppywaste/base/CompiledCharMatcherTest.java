@@ -0,0 +1,90 @@
+package com.github.floppywaste.base;
+
+import static com.google.common.base.Charsets.US_ASCII;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.ReadOnlyBufferException;
+
+import org.junit.Test;
+
+import com.google.common.base.CharMatcher;
+
+
+public class CompiledCharMatcherTest {
+
+    CompiledCharMatcher digitOrWhitespace = CompiledCharMatcher.compile(CharMatcher.DIGIT.or(CharMatcher.WHITESPACE));
+
+    @Test
+    public void matches_sameAsCharMatcher() throws Exception {
+        CharMatcher greaterB = CharMatcher.forPredicate(c -> c > 66);
+        CompiledCharMatcher compiled = CompiledCharMatcher.compile(greaterB);
+
+        for (int c = Character.MIN_VALUE; c <= Character.MAX_VALUE; c++) {
+            assertThat(compiled.matches((char) c)).isEqualTo(greaterB.matches((char) c));
+        }
+        assertThat(compiled.countIn("AbC".toCharArray(), 0, 3)).isEqualTo(2);
+    }
+
+    @Test
+    public void retainAndRemove_inPlaceOnCharArray() throws Exception {
+        char[] retained = "#1 2a3b".toCharArray();
+        char[] removed = "#1 2a3b".toCharArray();
+
+        int retainedEnd = digitOrWhitespace.retainFrom(retained, 0, retained.length);
+        int removedEnd = digitOrWhitespace.removeFrom(removed, 0, removed.length);
+
+        assertThat(new String(retained, 0, retainedEnd)).isEqualTo("1 23");
+        assertThat(new String(removed, 0, removedEnd)).isEqualTo("#ab");
+        assertThat(digitOrWhitespace.indexIn(removed, 0, removedEnd)).isEqualTo(-1);
+    }
+
+    @Test
+    public void replaceFrom_countsReplacements() throws Exception {
+        char[] chars = "@b¢d€fg".toCharArray();
+
+        int replaced = CompiledCharMatcher.compile(CharMatcher.ASCII.negate()).replaceFrom(chars, 0, chars.length, '?');
+
+        assertThat(replaced).isEqualTo(2);
+        assertThat(new String(chars)).isEqualTo("@b?d?fg");
+    }
+
+    @Test
+    public void charBuffer_heapAndReadOnlyRanges() throws Exception {
+        CharBuffer heap = CharBuffer.wrap("xx#1 2a3bxx".toCharArray(), 2, 7).slice();
+        assertThat(digitOrWhitespace.countIn(heap)).isEqualTo(4);
+        assertThat(digitOrWhitespace.retainFrom(heap)).isEqualTo(4);
+        assertThat(heap.toString()).isEqualTo("1 23");
+
+        CharBuffer direct = ByteBuffer.allocateDirect(14).asCharBuffer().put("#1 2a3b");
+        direct.flip();
+        assertThat(digitOrWhitespace.removeFrom(direct)).isEqualTo(3);
+        assertThat(direct.toString()).isEqualTo("#ab");
+
+        CharBuffer readOnly = CharBuffer.wrap("xx#1 2a3bxx".toCharArray(), 2, 7).asReadOnlyBuffer();
+        assertThat(digitOrWhitespace.countIn(readOnly)).isEqualTo(4);
+        assertThat(digitOrWhitespace.countIn(CharBuffer.wrap("#1 2a3b"))).isEqualTo(4);
+        try {
+            digitOrWhitespace.retainFrom(readOnly);
+            throw new AssertionError("modified a read-only buffer");
+        } catch (ReadOnlyBufferException expected) {
+            assertThat(readOnly.toString()).isEqualTo("#1 2a3b");
+        }
+    }
+
+    @Test
+    public void bytes_asciiRanges() throws Exception {
+        byte[] bytes = "xx#1 2a3b".getBytes(US_ASCII);
+        assertThat(digitOrWhitespace.countIn(bytes, 2, bytes.length)).isEqualTo(4);
+        int end = digitOrWhitespace.removeFrom(bytes, 2, bytes.length);
+        assertThat(new String(bytes, 0, end, US_ASCII)).isEqualTo("xx#ab");
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(7);
+        direct.put("#1 2a3b".getBytes(US_ASCII)).flip();
+        assertThat(digitOrWhitespace.retainFrom(direct)).isEqualTo(4);
+        byte[] retained = new byte[direct.remaining()];
+        direct.get(retained);
+        assertThat(new String(retained, US_ASCII)).isEqualTo("1 23");
+    }
+}
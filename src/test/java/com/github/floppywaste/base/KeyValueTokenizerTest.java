@@ -0,0 +1,94 @@
+package com.github.floppywaste.base;
+
+import static com.google.common.base.CharMatcher.WHITESPACE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.data.MapEntry.entry;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.github.floppywaste.base.KeyValueTokenizer.DuplicateKeyPolicy;
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Maps;
+
+
+public class KeyValueTokenizerTest {
+
+    String jsonString = "{a:1, b:2, d:4}";
+
+    KeyValueTokenizer tokenizer =
+            KeyValueTokenizer.on(',', ':').trimEntries(CharMatcher.anyOf("{}").or(WHITESPACE))
+                    .trimKeysAndValues(WHITESPACE);
+
+    @Test
+    public void forEach_sameEntriesAsMapSplitter() throws Exception {
+        Map<String, String> expected = Splitter.on(',').trimResults(CharMatcher.anyOf("{}").or(WHITESPACE))
+                .withKeyValueSeparator(Splitter.on(':').trimResults()).split(jsonString);
+        Map<String, String> entries = Maps.newLinkedHashMap();
+
+        tokenizer.record().reset(jsonString).forEach(
+                (chars, keyStart, keyEnd, valueStart, valueEnd) -> entries.put(
+                        chars.subSequence(keyStart, keyEnd).toString(),
+                        chars.subSequence(valueStart, valueEnd).toString()));
+
+        assertThat(entries).isEqualTo(expected);
+        assertThat(entries).contains(entry("a", "1"), entry("b", "2"), entry("d", "4"));
+    }
+
+    @Test
+    public void record_parsesValuesInPlace() throws Exception {
+        KeyValueRecord record = tokenizer.record();
+
+        record.reset(jsonString);
+        assertThat(record.size()).isEqualTo(3);
+        assertThat(record.getInt("b", -1)).isEqualTo(2);
+        assertThat(record.getLong("c", -1)).isEqualTo(-1);
+        assertThat(record.keyEquals(2, "d")).isTrue();
+        assertThat(record.valueAsInt(2)).isEqualTo(4);
+
+        record.reset("{x : 10000000000}");
+        assertThat(record.size()).isEqualTo(1);
+        assertThat(record.containsKey("a")).isFalse();
+        assertThat(record.getLong("x", 0)).isEqualTo(10000000000L);
+        assertThat(record.toString()).isEqualTo("{x=10000000000}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateKeys_rejectedByDefault() throws Exception {
+        tokenizer.record().reset("{a:1, a:2}");
+    }
+
+    @Test
+    public void duplicateKeys_firstOrLastWins() throws Exception {
+        String duplicates = "{a:1, b:2, a:3}";
+
+        KeyValueRecord first = tokenizer.onDuplicateKey(DuplicateKeyPolicy.FIRST_WINS).record().reset(duplicates);
+        KeyValueRecord last = tokenizer.onDuplicateKey(DuplicateKeyPolicy.LAST_WINS).record().reset(duplicates);
+
+        assertThat(first.size()).isEqualTo(2);
+        assertThat(first.getInt("a", 0)).isEqualTo(1);
+        assertThat(last.size()).isEqualTo(2);
+        assertThat(last.getInt("a", 0)).isEqualTo(3);
+        assertThat(last.key(0)).isEqualTo("a");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidEntry_rejectedLikeMapSplitter() throws Exception {
+        tokenizer.record().reset("{a:1, b}");
+    }
+
+    @Test
+    public void record_growsForManyEntries() throws Exception {
+        StringBuilder many = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            many.append(i == 0 ? "" : ",").append('k').append(i).append(':').append(i);
+        }
+
+        KeyValueRecord record = KeyValueTokenizer.on(',', ':').record().reset(many);
+
+        assertThat(record.size()).isEqualTo(20);
+        assertThat(record.getInt("k19", -1)).isEqualTo(19);
+    }
+}
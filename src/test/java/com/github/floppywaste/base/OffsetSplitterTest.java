@@ -0,0 +1,93 @@
+package com.github.floppywaste.base;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
+
+
+public class OffsetSplitterTest {
+
+    static final String[] INPUTS = { "", ",", "a", "a, b, ,d", " a ,,b,", "Sensor A,2015-02-13 12:00,144" };
+
+    @Test
+    public void reset_sameFieldsAsSplitter() throws Exception {
+        assertSameFields(Splitter.on(','), OffsetSplitter.on(','));
+        assertSameFields(Splitter.on(',').trimResults(), OffsetSplitter.on(',').trimResults());
+        assertSameFields(Splitter.on(',').omitEmptyStrings(), OffsetSplitter.on(',').omitEmptyStrings());
+        assertSameFields(Splitter.on(',').omitEmptyStrings().trimResults(),
+                OffsetSplitter.on(',').omitEmptyStrings().trimResults());
+        assertSameFields(Splitter.on(CharMatcher.anyOf(",;")).trimResults(CharMatcher.is('a')),
+                OffsetSplitter.on(CharMatcher.anyOf(",;")).trimResults(CharMatcher.is('a')));
+    }
+
+    @Test
+    public void cursor_readsFieldsInPlace() throws Exception {
+        FieldCursor fields = OffsetSplitter.on(',').cursor();
+
+        fields.reset("Sensor A,2015-02-13 12:00,144");
+        assertThat(fields.fieldCount()).isEqualTo(3);
+        assertThat(fields.equalsField(0, "Sensor A")).isTrue();
+        assertThat(fields.equalsField(0, "Sensor B")).isFalse();
+        assertThat(fields.parseInt(2)).isEqualTo(144);
+        assertThat(fields.start(1)).isEqualTo(9);
+        assertThat(fields.end(1)).isEqualTo(25);
+
+        fields.reset("Sensor B,2015-02-13 12:00,-9000000000");
+        assertThat(fields.parseLong(2)).isEqualTo(-9000000000L);
+        assertThat(fields.toString(0)).isEqualTo("Sensor B");
+    }
+
+    @Test
+    public void cursor_growsForManyFields() throws Exception {
+        FieldCursor fields = OffsetSplitter.on(',').cursor();
+
+        fields.reset("0,1,2,3,4,5,6,7,8,9,10,11,12,13,14,15,16,17,18,19");
+
+        assertThat(fields.fieldCount()).isEqualTo(20);
+        assertThat(fields.parseInt(19)).isEqualTo(19);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void cursor_checksFieldIndex() throws Exception {
+        OffsetSplitter.on(',').cursor().reset("a,b").parseInt(2);
+    }
+
+    @Test
+    public void parseInt_sameAsInteger() throws Exception {
+        for (String number : new String[] { "0", "-1", "+7", "2147483647", "-2147483648" }) {
+            assertThat(CharSequences.parseInt("x" + number + "y", 1, number.length() + 1)).isEqualTo(
+                    Integer.parseInt(number));
+        }
+        assertThat(CharSequences.parseLong("-9223372036854775808", 0, 20)).isEqualTo(Long.MIN_VALUE);
+    }
+
+    @Test
+    public void parseInt_rejectsWhatIntegerRejects() throws Exception {
+        for (String number : new String[] { "", "-", "+", "1x", " 1", "2147483648", "-2147483649" }) {
+            try {
+                CharSequences.parseInt(number, 0, number.length());
+                throw new AssertionError("accepted " + number);
+            } catch (NumberFormatException expected) {
+                // as Integer.parseInt
+            }
+        }
+    }
+
+    private static void assertSameFields(final Splitter splitter, final OffsetSplitter offsetSplitter) {
+        FieldCursor cursor = offsetSplitter.cursor();
+        for (String input : INPUTS) {
+            cursor.reset(input);
+            List<String> fields = Lists.newArrayList();
+            for (int i = 0; i < cursor.fieldCount(); i++) {
+                fields.add(cursor.toString(i));
+            }
+            assertThat(fields).as(input).isEqualTo(splitter.splitToList(input));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.floppywaste.collect;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multiset;
+
+
+public class EventCounterTest {
+
+    @Test
+    public void add_fromManyThreads() throws Exception {
+        EventCounter<String> counter = EventCounter.create();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> reporters = Lists.newArrayList();
+        for (int thread = 0; thread < 8; thread++) {
+            reporters.add(executor.submit(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    counter.add(i % 4 == 0 ? "fail" : "success");
+                }
+            }));
+        }
+        for (Future<?> reporter : reporters) {
+            reporter.get();
+        }
+        executor.shutdown();
+
+        assertThat(counter.count("success")).isEqualTo(60000);
+        assertThat(counter.count("fail")).isEqualTo(20000);
+        assertThat(counter.count("unknown")).isEqualTo(0);
+    }
+
+    @Test
+    public void snapshotAndReset_losesNothingWhileCounting() throws Exception {
+        EventCounter<String> counter = EventCounter.create();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Long> snapshots = executor.submit(new Callable<Long>() {
+
+            @Override
+            public Long call() throws Exception {
+                long total = 0;
+                for (int i = 0; i < 100; i++) {
+                    total += counter.snapshotAndReset().count("success");
+                    Thread.sleep(1);
+                }
+                return total;
+            }
+        });
+        for (int i = 0; i < 100000; i++) {
+            counter.add("success");
+        }
+        long drained = snapshots.get();
+        executor.shutdown();
+
+        assertThat(drained + counter.snapshot().count("success")).isEqualTo(100000);
+    }
+
+    @Test
+    public void events_unmodifiableLiveView() throws Exception {
+        EventCounter<String> counter = EventCounter.create();
+        Set<String> events = counter.events();
+        counter.add("success");
+        counter.snapshotAndReset();
+
+        assertThat(events).containsExactly("success");
+        try {
+            events.remove("success");
+            throw new AssertionError("removed an event behind the counter's back");
+        } catch (UnsupportedOperationException expected) {
+            assertThat(counter.events()).containsExactly("success");
+        }
+    }
+
+    @Test
+    public void sum_mergesReporters() throws Exception {
+        EventCounter<String> reporter1 = EventCounter.create();
+        reporter1.add("success", 5);
+        reporter1.add("fail", 2);
+        Multiset<String> singleThreaded = HashMultiset.create();
+        singleThreaded.add("success", 3);
+        singleThreaded.add("fail");
+        EventCounter<String> reporter2 = EventCounter.create();
+        reporter2.addAll(singleThreaded);
+
+        Multiset<String> totalReporter = EventCounter.sum(ImmutableList.of(reporter1, reporter2));
+
+        assertThat(totalReporter.count("success")).isEqualTo(8);
+        assertThat(totalReporter.count("fail")).isEqualTo(3);
+        assertThat(reporter1.snapshot().count("success")).isEqualTo(5);
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.floppywaste.collect;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
+import com.google.common.io.Resources;
+
+
+public class IntMultimapTest {
+
+    @Test
+    public void index_groupsWithoutBoxing() throws Exception {
+        List<String> lines = Resources.asCharSource(Resources.getResource("test.csv"), Charsets.UTF_8).readLines();
+        List<List<String>> csvTable = Lists.transform(lines, line -> Splitter.on(',').splitToList(line));
+
+        IntMultimap<String> valuesPerDevice =
+                IntMultimap.index(csvTable, row -> row.get(0), row -> Integer.parseInt(row.get(2)));
+
+        assertThat(valuesPerDevice.keySet()).containsExactly("Sensor A", "Sensor B");
+        assertThat(valuesPerDevice.get("Sensor A").toArray()).containsExactly(144, 122, 200, 134);
+        assertThat(valuesPerDevice.mean("Sensor A")).isEqualTo(150.);
+        assertThat(valuesPerDevice.mean("Sensor B")).isEqualTo(406.25);
+        assertThat(valuesPerDevice.sum("Sensor B")).isEqualTo(1625);
+        assertThat(valuesPerDevice.size()).isEqualTo(8);
+    }
+
+    @Test
+    public void putAll_bulkAppend() throws Exception {
+        IntMultimap<String> multimap = IntMultimap.create();
+        multimap.put("a", 1);
+        multimap.putAll("a", new int[] { 9, 2, 3, 9 }, 1, 3);
+        IntMultimap<String> other = IntMultimap.create();
+        other.put("b", 5);
+        other.put("a", 4);
+        multimap.putAll(other);
+
+        assertThat(multimap.get("a").toArray()).containsExactly(1, 2, 3, 4);
+        assertThat(multimap.get("b").toArray()).containsExactly(5);
+        assertThat(multimap.get("c").isEmpty()).isTrue();
+        assertThat(multimap.size()).isEqualTo(5);
+    }
+
+    @Test
+    public void get_liveColumnOfAPresentKey() throws Exception {
+        IntMultimap<String> multimap = IntMultimap.create();
+        multimap.put("a", 1);
+
+        multimap.get("a").add(2);
+
+        assertThat(multimap.get("a").toArray()).containsExactly(1, 2);
+        assertThat(multimap.size()).isEqualTo(2);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void get_absentKeyCannotBeAppendedTo() throws Exception {
+        IntMultimap.<String> create().get("a").add(1);
+    }
+
+    @Test
+    public void percentiles_interpolateBetweenRanks() throws Exception {
+        IntColumn column = new IntColumn(1);
+        column.addAll(new int[] { 40, 10, 30, 20 }, 0, 4);
+
+        assertThat(column.percentile(0)).isEqualTo(10.);
+        assertThat(column.percentile(50)).isEqualTo(25.);
+        assertThat(column.percentiles(100, 75)).containsExactly(40., 32.5);
+        assertThat(column.get(0)).isEqualTo(40);
+    }
+
+    @Test
+    public void sum_doesNotOverflow() throws Exception {
+        IntColumn column = new IntColumn();
+        column.add(Integer.MAX_VALUE);
+        column.add(Integer.MAX_VALUE);
+
+        assertThat(column.sum()).isEqualTo(2L * Integer.MAX_VALUE);
+        assertThat(column.mean()).isEqualTo(Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,136 @@
+package com.github.floppywaste.collect;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.junit.Test;
+
+import com.google.common.collect.AbstractSequentialIterator;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.primitives.Ints;
+
+
+public class IntSequenceTest {
+
+    @Test
+    public void arithmetic_likeAbstractSequentialIterator() throws Exception {
+        Iterator<Integer> allNaturalNumbers = new AbstractSequentialIterator<Integer>(1) {
+            @Override
+            protected Integer computeNext(final Integer previous) {
+                return previous + 1;
+            }
+        };
+
+        int[] first10 = IntSequence.arithmetic(1, 1).stream(0, 10).toArray();
+
+        assertThat(Ints.asList(first10)).containsExactlyElementsOf(Lists.newArrayList(Iterators.limit(
+                allNaturalNumbers, 10)));
+    }
+
+    @Test
+    public void nth_jumpsWhereSteppingWouldArrive() throws Exception {
+        IntSequence sequence = IntSequence.arithmetic(Integer.MAX_VALUE - 5, 7);
+        int value = sequence.nth(0);
+        for (long i = 1; i < 1000; i++) {
+            value += 7;
+            assertThat(sequence.nth(i)).isEqualTo(value);
+        }
+        assertThat(sequence.nth(1L << 40)).isEqualTo(Integer.MAX_VALUE - 5 + (int) (7L << 40));
+    }
+
+    @Test
+    public void cycle_likeIterablesCycle() throws Exception {
+        IntSequence sequence = IntSequence.cycle(3, 1, 2);
+
+        assertThat(sequence.stream(0, 7).toArray()).containsExactly(3, 1, 2, 3, 1, 2, 3);
+        assertThat(sequence.nth(3000000002L)).isEqualTo(2);
+    }
+
+    @Test
+    public void random_sameValuesHoweverSplitAndWithinBound() throws Exception {
+        IntSequence sequence = IntSequence.random(42, 1000);
+
+        int[] sequential = sequence.stream(0, 100000).toArray();
+        int[] parallel = sequence.stream(0, 100000).parallel().toArray();
+
+        assertThat(parallel).isEqualTo(sequential);
+        assertThat(sequence.stream(0, 100000).min().getAsInt()).isZero();
+        assertThat(sequence.stream(0, 100000).max().getAsInt()).isEqualTo(999);
+        assertThat(sequence.stream(0, 100000).distinct().count()).isEqualTo(1000);
+        assertThat(IntSequence.random(43, 1000).stream(0, 100).toArray()).isNotEqualTo(sequence.stream(0, 100)
+                .toArray());
+    }
+
+    @Test
+    public void spliterator_splitsEvenly() throws Exception {
+        Spliterator.OfInt suffix = IntSequence.arithmetic(0, 1).spliterator(10, 1010);
+
+        Spliterator.OfInt prefix = suffix.trySplit();
+
+        assertThat(prefix.estimateSize()).isEqualTo(500);
+        assertThat(suffix.estimateSize()).isEqualTo(500);
+        assertThat(prefix.getExactSizeIfKnown()).isEqualTo(500);
+        assertThat(prefix.hasCharacteristics(Spliterator.SUBSIZED | Spliterator.ORDERED)).isTrue();
+        assertThat(StreamSupport.intStream(prefix, false).toArray()).startsWith(10).endsWith(509);
+        assertThat(StreamSupport.intStream(suffix, false).toArray()).startsWith(510).endsWith(1009);
+    }
+
+    @Test
+    public void spliterator_singleElementDoesNotSplit() throws Exception {
+        Spliterator.OfInt spliterator = IntSequence.arithmetic(0, 1).spliterator(5, 6);
+
+        assertThat(spliterator.trySplit()).isNull();
+        assertThat(spliterator.tryAdvance((int value) -> assertThat(value).isEqualTo(5))).isTrue();
+        assertThat(spliterator.tryAdvance((int value) -> { })).isFalse();
+    }
+
+    @Test
+    public void stream_parallelSum() throws Exception {
+        long sum = IntSequence.arithmetic(1, 1).stream(0, 10000000).parallel().asLongStream().sum();
+
+        assertThat(sum).isEqualTo(10000000L * 10000001 / 2);
+    }
+
+    @Test
+    public void fill_reusesTheBatch() throws Exception {
+        IntSequence sequence = IntSequence.arithmetic(100, -3);
+        int[] batch = new int[4];
+
+        assertThat(sequence.fill(batch, 0)).isSameAs(batch).containsExactly(100, 97, 94, 91);
+        assertThat(sequence.fill(batch, 4)).containsExactly(88, 85, 82, 79);
+    }
+
+    @Test
+    public void partition_likeIterablesPartition() throws Exception {
+        List<int[]> batches = Lists.newArrayList(IntSequence.arithmetic(0, 1).partition(2, 12, 4));
+
+        assertThat(batches).hasSize(3);
+        assertThat(batches.get(0)).containsExactly(2, 3, 4, 5);
+        assertThat(batches.get(1)).containsExactly(6, 7, 8, 9);
+        assertThat(batches.get(2)).containsExactly(10, 11);
+        assertThat(IntSequence.arithmetic(0, 1).partition(3, 3, 4)).isEmpty();
+    }
+
+    @Test
+    public void partition_splitsAtBatchBoundaries() throws Exception {
+        Iterable<int[]> batches = IntSequence.arithmetic(0, 1).partition(0, 100003, 1000);
+
+        List<int[]> parallel = StreamSupport.stream(batches.spliterator(), true).collect(Collectors.toList());
+
+        assertThat(parallel).hasSize(101);
+        for (int i = 0; i < parallel.size(); i++) {
+            assertThat(parallel.get(i)).hasSize(i < 100 ? 1000 : 3).startsWith(i * 1000);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void spliterator_invalidRange() throws Exception {
+        IntSequence.arithmetic(0, 1).spliterator(10, 9);
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.floppywaste.collect;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+
+public class LongSequenceTest {
+
+    @Test
+    public void arithmetic_timestamps() throws Exception {
+        LongSequence timestamps = LongSequence.arithmetic(1423828800000L, 15 * 60 * 1000);
+
+        assertThat(timestamps.stream(0, 3).toArray()).containsExactly(1423828800000L, 1423829700000L, 1423830600000L);
+        assertThat(timestamps.nth(96)).isEqualTo(1423828800000L + 24 * 60 * 60 * 1000);
+    }
+
+    @Test
+    public void random_likeSplittableRandom() throws Exception {
+        SplittableRandom random = new SplittableRandom(7);
+        LongSequence sequence = LongSequence.random(7);
+
+        for (long i = 0; i < 1000; i++) {
+            assertThat(sequence.nth(i)).isEqualTo(random.nextLong());
+        }
+    }
+
+    @Test
+    public void stream_parallelEqualsSequential() throws Exception {
+        LongSequence sequence = LongSequence.random(11);
+
+        assertThat(sequence.stream(5, 200005).parallel().toArray()).isEqualTo(sequence.stream(5, 200005).toArray());
+    }
+
+    @Test
+    public void partition_intoLongArrays() throws Exception {
+        List<long[]> batches = Lists.newArrayList(LongSequence.cycle(1, 2).partition(0, 5, 2));
+
+        assertThat(batches).hasSize(3);
+        assertThat(batches.get(0)).containsExactly(1, 2);
+        assertThat(batches.get(2)).containsExactly(1);
+    }
+}
@@ -0,0 +1,156 @@
+package com.github.floppywaste.collect;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.github.floppywaste.collect.Memoizing.MemoizedList;
+import com.github.floppywaste.collect.Memoizing.MemoizedMap;
+import com.google.common.base.Function;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.math.DoubleMath;
+
+
+public class MemoizingTest {
+
+    static final List<Integer> INT_LIST = ImmutableList.of(1, 2, 3, 4);
+
+    AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    public void transform_computesEveryElementOnce() throws Exception {
+        MemoizedList<Integer> memoized = Memoizing.transform(INT_LIST, square(), CacheBuilder.newBuilder());
+
+        assertThat(memoized).containsExactly(1, 4, 9, 16);
+        assertThat(memoized).containsExactly(1, 4, 9, 16);
+        long hits = memoized.stats().hitCount();
+        assertThat(memoized.get(1)).isEqualTo(4);
+
+        assertThat(calls.get()).isEqualTo(4);
+        assertThat(memoized.stats().missCount()).isEqualTo(4);
+        assertThat(memoized.stats().hitCount()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    public void transform_sizeBoundedEviction() throws Exception {
+        MemoizedList<Integer> memoized =
+                Memoizing.transform(INT_LIST, square(), CacheBuilder.newBuilder().maximumSize(1));
+
+        memoized.get(0);
+        memoized.get(1);
+        memoized.get(0);
+
+        assertThat(calls.get()).isEqualTo(3);
+        assertThat(memoized.stats().evictionCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void transformValues_weightBoundedEviction() throws Exception {
+        Map<String, Integer> fromMap = ImmutableMap.of("small", 1, "large", 4);
+        CacheBuilder<String, Integer> builder =
+                CacheBuilder.newBuilder().maximumWeight(10).weigher(new Weigher<String, Integer>() {
+
+                    @Override
+                    public int weigh(final String key, final Integer value) {
+                        return value;
+                    }
+                });
+        MemoizedMap<String, Integer> memoized = Memoizing.transformValues(fromMap, square(), builder);
+
+        assertThat(memoized.get("small")).isEqualTo(1);
+        assertThat(memoized.get("small")).isEqualTo(1);
+        assertThat(memoized.get("large")).isEqualTo(16);
+        assertThat(memoized.get("large")).isEqualTo(16);
+        assertThat(memoized.get("missing")).isNull();
+
+        // the square of 4 weighs more than the budget and is recomputed every time
+        assertThat(calls.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void transformValues_multimapMeansComputedOncePerDevice() throws Exception {
+        ListMultimap<String, String> valuesPerDevice = ImmutableListMultimap.of("Sensor A", "144", "Sensor A", "156",
+                "Sensor B", "321");
+        MemoizedMap<String, List<Integer>> parsed =
+                Memoizing.transformValues(valuesPerDevice, Integer::valueOf, CacheBuilder.newBuilder());
+        MemoizedMap<String, Double> averageValuePerDevice =
+                Memoizing.transformValues(parsed, mean(), CacheBuilder.newBuilder().maximumSize(1000));
+
+        assertThat(averageValuePerDevice).containsEntry("Sensor A", 150.).containsEntry("Sensor B", 321.);
+        assertThat(averageValuePerDevice.get("Sensor A")).isEqualTo(150.);
+
+        assertThat(averageValuePerDevice.stats().missCount()).isEqualTo(2);
+        assertThat(parsed.stats().missCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void transform_concurrentReadersComputeOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        MemoizedList<Integer> memoized = Memoizing.transform(INT_LIST, new Function<Integer, Integer>() {
+
+            @Override
+            public Integer apply(final Integer input) {
+                calls.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return input * input;
+            }
+        }, CacheBuilder.newBuilder());
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 4; i++) {
+            readers.submit(() -> memoized.get(3));
+        }
+        Thread.sleep(50);
+        release.countDown();
+        readers.shutdown();
+        readers.awaitTermination(5, TimeUnit.SECONDS);
+
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(memoized.get(3)).isEqualTo(16);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void transform_rethrowsFunctionExceptions() throws Exception {
+        Memoizing.transform(INT_LIST, i -> {
+            throw new IllegalStateException();
+        }, CacheBuilder.newBuilder()).get(0);
+    }
+
+    Function<Integer, Integer> square() {
+        return new Function<Integer, Integer>() {
+
+            @Override
+            public Integer apply(final Integer input) {
+                calls.incrementAndGet();
+                return input * input;
+            }
+        };
+    }
+
+    static Function<Collection<? extends Number>, Double> mean() {
+        return new Function<Collection<? extends Number>, Double>() {
+
+            @Override
+            public Double apply(final Collection<? extends Number> input) {
+                return DoubleMath.mean(input);
+            }
+        };
+    }
+}
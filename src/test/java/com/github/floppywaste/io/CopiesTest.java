@@ -0,0 +1,105 @@
+package com.github.floppywaste.io;
+
+import static com.google.common.hash.Hashing.md5;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+
+
+public class CopiesTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    ByteSource byteSource = Resources.asByteSource(Resources.getResource("test.csv"));
+
+    @Test
+    public void copyAndHash_digestOfTheBytesWritten() throws Exception {
+        File outputFile = folder.newFile("out.csv");
+
+        HashCode hash = Copies.copyAndHash(byteSource, Files.asByteSink(outputFile), md5());
+
+        assertThat(hash.toString()).isEqualTo("551618522380a4e6dc7097eeb41a56f1");
+        assertThat(Files.hash(outputFile, md5())).isEqualTo(hash);
+    }
+
+    @Test
+    public void copy_filesLargerThanTheBuffer() throws Exception {
+        byte[] bytes = new byte[3 * Copies.BUFFER_SIZE + 17];
+        new Random(42).nextBytes(bytes);
+        File inputFile = folder.newFile("in.bin");
+        Files.write(bytes, inputFile);
+        File transferred = folder.newFile("transferred.bin");
+        File hashed = folder.newFile("hashed.bin");
+
+        assertThat(Copies.copy(inputFile, transferred)).isEqualTo(bytes.length);
+        HashCode hash = Copies.copyAndHash(inputFile, hashed, Hashing.sha256());
+
+        assertThat(Files.toByteArray(transferred)).isEqualTo(bytes);
+        assertThat(Files.toByteArray(hashed)).isEqualTo(bytes);
+        assertThat(hash).isEqualTo(Hashing.sha256().hashBytes(bytes));
+    }
+
+    @Test
+    public void copy_rejectsTheSameFile() throws Exception {
+        File file = folder.newFile("in.csv");
+        Files.write(new byte[] { 1, 2, 3 }, file);
+
+        try {
+            Copies.copy(file, file);
+            throw new AssertionError("copied a file onto itself");
+        } catch (IllegalArgumentException e) {
+            assertThat(Files.toByteArray(file)).isEqualTo(new byte[] { 1, 2, 3 });
+        }
+        try {
+            Copies.copyAndHash(file, file, md5());
+            throw new AssertionError("copied a file onto itself");
+        } catch (IllegalArgumentException e) {
+            assertThat(Files.toByteArray(file)).isEqualTo(new byte[] { 1, 2, 3 });
+        }
+    }
+
+    @Test
+    public void copyAndVerify_deletesACorruptFileCopy() throws Exception {
+        File inputFile = folder.newFile("in.bin");
+        Files.write(new byte[] { 1 }, inputFile);
+        File outputFile = new File(folder.getRoot(), "out.bin");
+
+        try {
+            Copies.copyAndVerify(inputFile, outputFile, md5(), HashCode.fromString("551618522380a4e6dc7097eeb41a56f1"));
+            throw new AssertionError("corrupt copy accepted");
+        } catch (IOException e) {
+            assertThat(outputFile.exists()).isFalse();
+        }
+        assertThat(Copies.copyAndVerify(inputFile, outputFile, md5(), md5().hashBytes(new byte[] { 1 }))).isEqualTo(
+                md5().hashBytes(new byte[] { 1 }));
+        assertThat(Files.toByteArray(outputFile)).isEqualTo(new byte[] { 1 });
+    }
+
+    @Test
+    public void copyAndVerify_rejectsUnexpectedDigest() throws Exception {
+        File outputFile = folder.newFile("out.csv");
+        HashCode expected = HashCode.fromString("551618522380a4e6dc7097eeb41a56f1");
+        assertThat(Copies.copyAndVerify(byteSource, Files.asByteSink(outputFile), md5(), expected)).isEqualTo(
+                expected);
+
+        try {
+            Copies.copyAndVerify(ByteSource.wrap(new byte[] { 1 }), Files.asByteSink(outputFile), md5(), expected);
+            throw new AssertionError("corrupt copy accepted");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).contains(expected.toString());
+        }
+    }
+}
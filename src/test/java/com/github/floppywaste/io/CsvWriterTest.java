@@ -0,0 +1,164 @@
+package com.github.floppywaste.io;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
+import com.google.common.io.Files;
+
+
+public class CsvWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    @Test
+    public void row_likeJoiner() throws Exception {
+        CsvWriter out = CsvFormat.on(", ").newWriter(Channels.newChannel(bytes));
+
+        out.row("a", 1, -2L, 2.5, 'c', "e").row().field("x").field(42).endRow();
+        out.close();
+
+        assertThat(written()).isEqualTo(Joiner.on(", ").join("a", 1, -2L, 2.5, 'c', "e") + "\n\nx, 42\n");
+        assertThat(out.rows()).isEqualTo(3);
+    }
+
+    @Test
+    public void skipNulls_likeJoiner() throws Exception {
+        CsvWriter out = CsvFormat.on(", ").skipNulls().newWriter(Channels.newChannel(bytes));
+
+        out.row(null, "a", "b", "c", null, "e");
+        out.close();
+
+        assertThat(written()).isEqualTo(Joiner.on(", ").skipNulls().join(null, "a", "b", "c", null, "e") + "\n");
+    }
+
+    @Test
+    public void useForNull_likeJoiner() throws Exception {
+        CsvWriter out = CsvFormat.on(", ").useForNull("_").newWriter(Channels.newChannel(bytes));
+
+        out.row("a", "b", "c", null, "e");
+        out.close();
+
+        assertThat(written()).isEqualTo("a, b, c, _, e\n");
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void field_nullWithoutNullHandling() throws Exception {
+        CsvFormat.on(',').newWriter(Channels.newChannel(bytes)).field((Object) null);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void useForNull_afterSkipNulls() throws Exception {
+        CsvFormat.on(',').skipNulls().useForNull("_");
+    }
+
+    @Test
+    public void field_integersAsStringValueOf() throws Exception {
+        long[] values = { 0, 1, -1, 9, 10, 99, 100, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE,
+                Long.MIN_VALUE, 1234567890123L, -987654321L };
+        CsvWriter out = CsvFormat.on(';').withBufferSize(64).newWriter(Channels.newChannel(bytes));
+        StringBuilder expected = new StringBuilder();
+        for (long value : values) {
+            out.field(value).field((int) value).endRow();
+            expected.append(value).append(';').append((int) value).append('\n');
+        }
+        out.close();
+
+        assertThat(written()).isEqualTo(expected.toString());
+    }
+
+    @Test
+    public void field_doublesReadBackExactly() throws Exception {
+        Random random = new Random(3);
+        double[] values = new double[10000];
+        for (int i = 0; i < values.length; i++) {
+            switch (i % 4) {
+            case 0:
+                // means of integer readings, as the aggregators write them
+                values[i] = (double) (random.nextInt(2000000) - 1000000) / (1 + random.nextInt(1000));
+                break;
+            case 1:
+                values[i] = random.nextDouble() * Math.pow(10, random.nextInt(14) - 5);
+                break;
+            case 2:
+                values[i] = Math.round(random.nextDouble() * 100000) / 100.;
+                break;
+            default:
+                values[i] = Double.longBitsToDouble(random.nextLong());
+            }
+        }
+        File file = folder.newFile();
+        CsvWriter out = CsvFormat.on(',').newWriter(Files.asByteSink(file));
+        for (double value : values) {
+            out.field(value).endRow();
+        }
+        out.close();
+
+        String[] lines = Files.asCharSource(file, UTF_8).read().split("\n");
+        assertThat(lines).hasSize(values.length);
+        for (int i = 0; i < values.length; i++) {
+            assertThat(Double.valueOf(lines[i])).isEqualTo(Double.valueOf(values[i]));
+            assertThat(lines[i].length()).isLessThanOrEqualTo(Double.toString(values[i]).length());
+        }
+    }
+
+    @Test
+    public void field_doublesAsDoubleToString() throws Exception {
+        double[] values = { 0., -0., 1., -1., 2.5, 0.1, 0.001, 123.456, 1. / 3, 2. / 3, 9999999.5, 1e7, 1e-4, 1e300,
+                Double.NaN, Double.NEGATIVE_INFINITY, Double.MIN_VALUE, Double.MAX_VALUE };
+        CsvWriter out = CsvFormat.on(' ').newWriter(Channels.newChannel(bytes));
+        for (double value : values) {
+            out.field(value);
+        }
+        out.close();
+
+        StringBuilder expected = new StringBuilder();
+        for (double value : values) {
+            expected.append(expected.length() == 0 ? "" : " ").append(value);
+        }
+        assertThat(written()).isEqualTo(expected.toString());
+    }
+
+    @Test
+    public void field_encodesUtf8AcrossBufferBoundaries() throws Exception {
+        String text = Strings.repeat("Fühler € 😀 ", 40);
+        CsvWriter out = CsvFormat.on("¦").withBufferSize(64).newWriter(Channels.newChannel(bytes));
+
+        out.row(text, "unpaired \ud83d", text);
+        out.close();
+
+        byte[] expected = (text + "¦unpaired \ud83d¦" + text + "\n").getBytes(UTF_8);
+        assertThat(Arrays.equals(bytes.toByteArray(), expected)).isTrue();
+    }
+
+    @Test
+    public void flush_writesAnUnfinishedRow() throws Exception {
+        CsvWriter out = CsvFormat.on(',').withLineSeparator("\r\n").newWriter(Channels.newChannel(bytes));
+
+        out.field("a").field(1);
+        assertThat(bytes.size()).isZero();
+        out.flush();
+        assertThat(written()).isEqualTo("a,1");
+
+        out.endRow().close();
+        assertThat(written()).isEqualTo("a,1\r\n");
+    }
+
+    private String written() {
+        return new String(bytes.toByteArray(), UTF_8);
+    }
+}
@@ -0,0 +1,251 @@
+package com.github.floppywaste.io;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.floppywaste.sensor.SensorAggregator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ConcurrentHashMultiset;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multiset;
+import com.google.common.io.CharStreams;
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+
+
+public class ParsedResourceCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    final AtomicInteger parses = new AtomicInteger();
+
+    ParsedResourceCache.Parser<Map<String, Double>> averages = new ParsedResourceCache.Parser<Map<String, Double>>() {
+
+        @Override
+        public Map<String, Double> parse(final InputStream in) throws IOException {
+            parses.incrementAndGet();
+            return CharStreams.readLines(new InputStreamReader(in, UTF_8), new SensorAggregator());
+        }
+    };
+
+    // a map entry of a few small objects, roughly
+    Weigher<Object, Map<String, Double>> bytesPerDevice = new Weigher<Object, Map<String, Double>>() {
+
+        @Override
+        public int weigh(final Object key, final Map<String, Double> value) {
+            return 100 * value.size();
+        }
+    };
+
+    ParsedResourceCache<Map<String, Double>> cache = ParsedResourceCache.create(averages, bytesPerDevice, 1 << 20);
+
+    @After
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void get_parsesOnce() throws Exception {
+        URL resource = Resources.getResource("test.csv");
+
+        Map<String, Double> first = cache.get(resource);
+        Map<String, Double> second = cache.get(resource);
+
+        assertThat(second).isSameAs(first).isEqualTo(SensorAggregator.averages(Resources.asCharSource(resource,
+                UTF_8)));
+        assertThat(parses.get()).isEqualTo(1);
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+        assertThat(cache.stats().loadSuccessCount()).isEqualTo(1);
+        assertThat(cache.contentChecks()).isZero();
+    }
+
+    @Test
+    public void get_parsesAgainWhenTheSizeChanged() throws Exception {
+        File file = folder.newFile("sensors.csv");
+        Files.write("a,2015-02-13 12:00,1\n", file, UTF_8);
+        URL url = file.toURI().toURL();
+        assertThat(cache.get(url)).containsEntry("a", 1.);
+
+        Files.append("a,2015-02-13 12:15,3\n", file, UTF_8);
+
+        assertThat(cache.get(url)).containsEntry("a", 2.);
+        assertThat(parses.get()).isEqualTo(2);
+        assertThat(cache.staleEntries()).isEqualTo(1);
+        assertThat(cache.contentChecks()).isZero();
+    }
+
+    @Test
+    public void get_contentHashDecidesWhenOnlyTheModificationTimeChanged() throws Exception {
+        File file = folder.newFile("sensors.csv");
+        Files.write("a,2015-02-13 12:00,1\n", file, UTF_8);
+        file.setLastModified(1000000000000L);
+        URL url = file.toURI().toURL();
+        cache.get(url);
+
+        file.setLastModified(1000000060000L);
+        assertThat(cache.get(url)).containsEntry("a", 1.);
+        assertThat(parses.get()).isEqualTo(1);
+        assertThat(cache.contentChecks()).isEqualTo(1);
+        cache.get(url);
+        assertThat(cache.contentChecks()).isEqualTo(1);
+
+        Files.write("a,2015-02-13 12:00,7\n", file, UTF_8);
+        file.setLastModified(1000000120000L);
+        assertThat(cache.get(url)).containsEntry("a", 7.);
+        assertThat(parses.get()).isEqualTo(2);
+        assertThat(cache.contentChecks()).isEqualTo(2);
+    }
+
+    @Test
+    public void get_contentHashDecidesWhenTheUrlReportsNoVersion() throws Exception {
+        final byte[][] content = { "a,2015-02-13 12:00,1\n".getBytes(UTF_8) };
+        URL url = new URL(null, "memory:sensors.csv", new URLStreamHandler() {
+
+            @Override
+            protected URLConnection openConnection(final URL u) {
+                return new URLConnection(u) {
+
+                    @Override
+                    public void connect() {
+                    }
+
+                    @Override
+                    public InputStream getInputStream() {
+                        return new ByteArrayInputStream(content[0]);
+                    }
+                };
+            }
+        });
+
+        cache.get(url);
+        cache.get(url);
+        content[0] = "a,2015-02-13 12:00,5\n".getBytes(UTF_8);
+
+        assertThat(cache.get(url)).containsEntry("a", 5.);
+        assertThat(parses.get()).isEqualTo(2);
+        assertThat(cache.contentChecks()).isEqualTo(2);
+    }
+
+    @Test
+    public void get_checksHttpResourcesWithHeadRequests() throws Exception {
+        final byte[] content = "a,2015-02-13 12:00,1\n".getBytes(UTF_8);
+        final Multiset<String> requests = ConcurrentHashMultiset.create();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/sensors.csv", new HttpHandler() {
+
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                requests.add(exchange.getRequestMethod());
+                exchange.getResponseHeaders().set("Last-Modified", "Fri, 13 Feb 2015 12:00:00 GMT");
+                if ("HEAD".equals(exchange.getRequestMethod())) {
+                    // the server only sets the length of a body it sends
+                    exchange.getResponseHeaders().set("Content-Length", Integer.toString(content.length));
+                    exchange.sendResponseHeaders(200, -1);
+                } else {
+                    exchange.sendResponseHeaders(200, content.length);
+                    exchange.getResponseBody().write(content);
+                }
+                exchange.close();
+            }
+        });
+        server.start();
+        try {
+            URL url = new URL("http", "127.0.0.1", server.getAddress().getPort(), "/sensors.csv");
+
+            assertThat(cache.get(url)).containsEntry("a", 1.);
+            assertThat(cache.get(url)).containsEntry("a", 1.);
+            assertThat(cache.get(url)).containsEntry("a", 1.);
+
+            assertThat(requests.count("GET")).isEqualTo(1);
+            assertThat(requests.count("HEAD")).isEqualTo(3);
+            assertThat(parses.get()).isEqualTo(1);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void get_evictsBeyondTheBudget() throws Exception {
+        cache = ParsedResourceCache.create(averages, bytesPerDevice, 2000);
+        for (int i = 0; i < 20; i++) {
+            File file = folder.newFile(i + ".csv");
+            Files.write("a,2015-02-13 12:00,1\nb,2015-02-13 12:00,2\n", file, UTF_8);
+            cache.get(file.toURI().toURL());
+        }
+
+        assertThat(cache.size() * 200).isLessThanOrEqualTo(2000);
+        assertThat(cache.stats().evictionCount()).isEqualTo(20 - cache.size());
+    }
+
+    @Test
+    public void get_concurrentMissesParseOnce() throws Exception {
+        final CountDownLatch parsing = new CountDownLatch(1);
+        final ParsedResourceCache<Map<String, Double>> slow = ParsedResourceCache.create(
+                new ParsedResourceCache.Parser<Map<String, Double>>() {
+
+                    @Override
+                    public Map<String, Double> parse(final InputStream in) throws IOException {
+                        parsing.countDown();
+                        try {
+                            Thread.sleep(100);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return averages.parse(in);
+                    }
+                }, bytesPerDevice, 1 << 20);
+        final URL resource = Resources.getResource("test.csv");
+        List<Future<Map<String, Double>>> results = Lists.newArrayList();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(new Callable<Map<String, Double>>() {
+
+                @Override
+                public Map<String, Double> call() throws Exception {
+                    return slow.get(resource);
+                }
+            }));
+        }
+
+        parsing.await();
+        for (Future<Map<String, Double>> result : results) {
+            assertThat(result.get()).isSameAs(results.get(0).get());
+        }
+        assertThat(parses.get()).isEqualTo(1);
+        assertThat(slow.stats().loadCount()).isEqualTo(1);
+    }
+
+    @Test(expected = IOException.class)
+    public void get_missingResource() throws Exception {
+        cache.get(new File(folder.getRoot(), "missing.csv").toURI().toURL());
+    }
+}
@@ -0,0 +1,165 @@
+package com.github.floppywaste.io;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.io.CharSource;
+import com.google.common.io.Resources;
+
+
+public class PrefetchingCharSourceTest {
+
+    CharSource charSource = Resources.asCharSource(Resources.getResource("test.csv"), UTF_8);
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    AtomicInteger opened = new AtomicInteger();
+    AtomicInteger closed = new AtomicInteger();
+
+    @After
+    public void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void readLines_sameAsCharSourceConcat() throws Exception {
+        CharSource concat = PrefetchingCharSource.concat(ImmutableList.of(charSource, charSource), 1, executor);
+
+        assertThat(concat.read()).isEqualTo(CharSource.concat(charSource, charSource).read());
+        assertThat(concat.readLines()).isEqualTo(CharSource.concat(charSource, charSource).readLines());
+    }
+
+    @Test
+    public void read_manySegmentsThroughTinyBuffers() throws Exception {
+        List<CharSource> segments = Lists.newArrayList();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            String segment = "segment " + i + "\nline " + i + "\n";
+            segments.add(counting(CharSource.wrap(segment)));
+            expected.append(segment);
+        }
+
+        CharSource concat = new PrefetchingCharSource(segments, 3, executor, 4, 2);
+
+        assertThat(concat.read()).isEqualTo(expected.toString());
+        assertThat(opened.get()).isEqualTo(50);
+        assertThat(closed.get()).isEqualTo(50);
+    }
+
+    @Test
+    public void close_stopsPrefetchingSegmentsEarly() throws Exception {
+        List<CharSource> segments = Lists.newArrayList();
+        for (int i = 0; i < 20; i++) {
+            segments.add(counting(CharSource.wrap(new String(new char[1000]).replace('\0', 'x'))));
+        }
+        CharSource concat = new PrefetchingCharSource(segments, 2, executor, 10, 2);
+
+        Reader reader = concat.openStream();
+        reader.read(new char[5]);
+        reader.close();
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+
+        assertThat(opened.get()).isLessThanOrEqualTo(3);
+        assertThat(closed.get()).isEqualTo(opened.get());
+    }
+
+    @Test(expected = IOException.class)
+    public void read_propagatesSegmentFailures() throws Exception {
+        CharSource failing = new CharSource() {
+
+            @Override
+            public Reader openStream() throws IOException {
+                throw new IOException("rotated away");
+            }
+        };
+
+        PrefetchingCharSource.concat(ImmutableList.of(charSource, failing), 1, executor).read();
+    }
+
+    @Test(timeout = 10000)
+    public void read_failsInsteadOfHangingWhenTheExecutorIsShutDown() throws Exception {
+        List<CharSource> segments = Lists.newArrayList();
+        for (int i = 0; i < 4; i++) {
+            segments.add(CharSource.wrap(new String(new char[100000]).replace('\0', 'x')));
+        }
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        Reader reader = new PrefetchingCharSource(segments, 2, single, 100, 2).openStream();
+        reader.read(new char[10]);
+
+        // interrupts the first segment while its queue is full and drops the other two before they run
+        single.shutdownNow();
+
+        char[] chars = new char[1000];
+        try {
+            while (reader.read(chars) != -1) {
+                // drain what was decoded before the shutdown
+            }
+            throw new AssertionError("read to the end without the executor");
+        } catch (IOException expected) {
+            // the interrupted segment or one that never ran
+        }
+    }
+
+    @Test(timeout = 10000, expected = IOException.class)
+    public void read_failsInsteadOfHangingWhenASegmentNeverRuns() throws Exception {
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        final CountDownLatch busy = new CountDownLatch(1);
+        single.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    busy.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        Reader reader = PrefetchingCharSource.concat(ImmutableList.of(charSource), 0, single).openStream();
+
+        // the segment is still queued behind the busy task and is dropped
+        single.shutdownNow();
+
+        reader.read(new char[10]);
+    }
+
+    @Test
+    public void read_withoutPrefetching() throws Exception {
+        CharSource concat = PrefetchingCharSource.concat(ImmutableList.of(charSource, charSource, charSource), 0);
+
+        assertThat(concat.readLines()).hasSize(24);
+    }
+
+    CharSource counting(final CharSource source) {
+        return new CharSource() {
+
+            @Override
+            public Reader openStream() throws IOException {
+                opened.incrementAndGet();
+                return new FilterReader(source.openStream()) {
+
+                    @Override
+                    public void close() throws IOException {
+                        closed.incrementAndGet();
+                        super.close();
+                    }
+                };
+            }
+        };
+    }
+}
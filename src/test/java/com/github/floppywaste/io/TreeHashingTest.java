@@ -0,0 +1,107 @@
+package com.github.floppywaste.io;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableRangeSet;
+import com.google.common.collect.Range;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+
+
+public class TreeHashingTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    ExecutorService singleThread = Executors.newSingleThreadExecutor();
+    HashFunction md5 = Hashing.md5();
+    byte[] bytes = randomBytes(10 * 1000 + 3);
+
+    @After
+    public void stopExecutor() {
+        executor.shutdown();
+        singleThread.shutdown();
+    }
+
+    @Test
+    public void hash_chunksAreHashesOfTheSlices() throws Exception {
+        TreeHash treeHash = TreeHashing.hash(ByteSource.wrap(bytes), md5, 1000, executor);
+
+        assertThat(treeHash.chunkHashes()).hasSize(11);
+        assertThat(treeHash.chunkHashes().get(10)).isEqualTo(md5.hashBytes(bytes, 10000, 3));
+        assertThat(treeHash.size()).isEqualTo(bytes.length);
+        assertThat(TreeHashing.hash(ByteSource.wrap(bytes), md5, 1000, singleThread)).isEqualTo(treeHash);
+    }
+
+    @Test
+    public void hash_rootDependsOnEveryByte() throws Exception {
+        ByteSource testCsv = Resources.asByteSource(Resources.getResource("test.csv"));
+        HashCode root = TreeHashing.hash(testCsv, md5).root();
+
+        byte[] modified = testCsv.read();
+        modified[modified.length - 2]++;
+
+        assertThat(TreeHashing.hash(ByteSource.wrap(modified), md5).root()).isNotEqualTo(root);
+        assertThat(TreeHashing.hash(ByteSource.empty(), md5).chunkHashes()).isEmpty();
+    }
+
+    @Test
+    public void manifest_roundTrip() throws Exception {
+        TreeHash treeHash = TreeHashing.hash(ByteSource.wrap(bytes), Hashing.sha256(), 4096, executor);
+        File manifest = folder.newFile("data.manifest");
+
+        treeHash.writeTo(Files.asCharSink(manifest, UTF_8));
+
+        assertThat(TreeHash.readFrom(Files.asCharSource(manifest, UTF_8))).isEqualTo(treeHash);
+    }
+
+    @Test
+    public void rehash_onlyChangedAndAppendedChunks() throws Exception {
+        TreeHash previous = TreeHashing.hash(ByteSource.wrap(bytes), md5, 1000, executor);
+        byte[] modified = new byte[bytes.length + 1500];
+        System.arraycopy(bytes, 0, modified, 0, bytes.length);
+        modified[2500]++;
+
+        TreeHash rehashed = TreeHashing.rehash(ByteSource.wrap(modified), md5, previous,
+                ImmutableRangeSet.of(Range.closedOpen(2500L, 2501L)), executor);
+
+        assertThat(rehashed).isEqualTo(TreeHashing.hash(ByteSource.wrap(modified), md5, 1000, executor));
+        assertThat(TreeHashing.changedChunks(ByteSource.wrap(modified), md5, previous, executor)).containsExactly(2,
+                10, 11);
+    }
+
+    @Test
+    public void rehash_reusesHashesOfUnchangedChunks() throws Exception {
+        TreeHash previous = TreeHashing.hash(ByteSource.wrap(bytes), md5, 1000, executor);
+        byte[] modified = bytes.clone();
+        modified[0]++;
+
+        // an empty change set trusts the manifest, even though byte 0 differs
+        TreeHash rehashed = TreeHashing.rehash(ByteSource.wrap(modified), md5, previous,
+                ImmutableRangeSet.<Long> of(), executor);
+
+        assertThat(rehashed).isEqualTo(previous);
+    }
+
+    static byte[] randomBytes(final int length) {
+        byte[] bytes = new byte[length];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.floppywaste.math;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.data.Offset.offset;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Test;
+
+
+public class HyperLogLogTest {
+
+    @Test
+    public void cardinality_withinThreeStandardErrors() throws Exception {
+        for (int precision : new int[] { 10, 12, 14 }) {
+            double standardError = 1.04 / Math.sqrt(1 << precision);
+            for (int distinct : new int[] { 10, 1000, 100000, 1000000 }) {
+                HyperLogLog sketch = HyperLogLog.create(precision);
+                for (int i = 0; i < distinct; i++) {
+                    // every element twice
+                    sketch.add("device-" + i);
+                    sketch.add("device-" + i);
+                }
+
+                assertThat((double) sketch.cardinality()).isCloseTo(distinct,
+                        offset(Math.max(1, 3 * standardError * distinct)));
+            }
+        }
+    }
+
+    @Test
+    public void merge_countsTheUnion() throws Exception {
+        HyperLogLog first = HyperLogLog.create();
+        HyperLogLog second = HyperLogLog.create();
+        HyperLogLog union = HyperLogLog.create();
+        for (int i = 0; i < 60000; i++) {
+            (i < 40000 ? first : second).add("device-" + i);
+            if (i >= 20000 && i < 40000) {
+                second.add("device-" + i);
+            }
+            union.add("device-" + i);
+        }
+
+        first.merge(second);
+
+        assertThat(first).isEqualTo(union);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void merge_rejectsOtherPrecision() throws Exception {
+        HyperLogLog.create(10).merge(HyperLogLog.create(12));
+    }
+
+    @Test
+    public void writeTo_readFrom_roundTrip() throws Exception {
+        HyperLogLog sketch = HyperLogLog.create(8);
+        for (int i = 0; i < 5000; i++) {
+            sketch.add("device-" + i);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        sketch.writeTo(bytes);
+        HyperLogLog read = HyperLogLog.readFrom(new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertThat(bytes.size()).isEqualTo(1 + 256);
+        assertThat(read).isEqualTo(sketch);
+        assertThat(read.cardinality()).isEqualTo(sketch.cardinality());
+    }
+}
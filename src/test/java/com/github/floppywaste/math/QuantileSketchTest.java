@@ -0,0 +1,103 @@
+package com.github.floppywaste.math;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+
+public class QuantileSketchTest {
+
+    static final double[] QUANTILES = { 0.01, 0.25, 0.5, 0.75, 0.95, 0.99 };
+
+    @Test
+    public void quantiles_withinTheDocumentedRankError() throws Exception {
+        for (long seed = 0; seed < 5; seed++) {
+            Random random = new Random(seed);
+            QuantileSketch sketch = QuantileSketch.create(200, seed);
+            double[] values = new double[200000];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextGaussian() * 100;
+                sketch.add(values[i]);
+            }
+
+            assertRankError(sketch, values, 0.0165);
+        }
+    }
+
+    @Test
+    public void retained_staysBounded() throws Exception {
+        QuantileSketch sketch = QuantileSketch.create(200, 1);
+        for (int i = 0; i < 1000000; i++) {
+            sketch.add(i);
+        }
+
+        assertThat(sketch.count()).isEqualTo(1000000);
+        assertThat(sketch.retained()).isLessThan(3 * 200 + 2 * 20);
+        assertThat(sketch.min()).isEqualTo(0);
+        assertThat(sketch.max()).isEqualTo(999999);
+    }
+
+    @Test
+    public void quantiles_exactWhileNothingWasCompacted() throws Exception {
+        QuantileSketch sketch = QuantileSketch.create();
+        for (int value : new int[] { 5, 1, 4, 2, 3 }) {
+            sketch.add(value);
+        }
+
+        assertThat(sketch.quantiles(0, 0.2, 0.5, 0.6, 1)).containsExactly(1, 1, 3, 3, 5);
+    }
+
+    @Test
+    public void merge_keepsTheErrorBound() throws Exception {
+        Random random = new Random(3);
+        QuantileSketch merged = QuantileSketch.create(200, 3);
+        double[] values = new double[100000];
+        for (int part = 0; part < 10; part++) {
+            QuantileSketch sketch = QuantileSketch.create(200, part);
+            for (int i = part * 10000; i < (part + 1) * 10000; i++) {
+                // every part has a different range
+                values[i] = random.nextInt(1000) + part * 100;
+                sketch.add(values[i]);
+            }
+            merged.merge(sketch);
+        }
+
+        assertThat(merged.count()).isEqualTo(values.length);
+        assertRankError(merged, values, 0.0165);
+    }
+
+    @Test
+    public void writeTo_readFrom_roundTrip() throws Exception {
+        QuantileSketch sketch = QuantileSketch.create(50, 1);
+        for (int i = 0; i < 10000; i++) {
+            sketch.add(i % 977);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        sketch.writeTo(bytes);
+        QuantileSketch read = QuantileSketch.readFrom(new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertThat(read.count()).isEqualTo(sketch.count());
+        assertThat(read.retained()).isEqualTo(sketch.retained());
+        assertThat(read.quantiles(QUANTILES)).isEqualTo(sketch.quantiles(QUANTILES));
+    }
+
+    private static void assertRankError(final QuantileSketch sketch, final double[] values, final double error) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        double[] estimates = sketch.quantiles(QUANTILES);
+        for (int i = 0; i < QUANTILES.length; i++) {
+            // the fraction of values up to the estimate
+            int rank = Arrays.binarySearch(sorted, estimates[i]);
+            while (rank + 1 < sorted.length && sorted[rank + 1] == estimates[i]) {
+                rank++;
+            }
+            assertThat(Math.abs((double) (rank + 1) / sorted.length - QUANTILES[i])).isLessThan(error);
+        }
+    }
+}
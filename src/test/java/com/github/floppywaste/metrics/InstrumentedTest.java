@@ -0,0 +1,138 @@
+package com.github.floppywaste.metrics;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.github.floppywaste.sensor.SensorAggregator;
+import com.google.common.base.Function;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteSource;
+import com.google.common.io.CharSource;
+import com.google.common.io.Resources;
+
+
+public class InstrumentedTest {
+
+    MetricsRegistry metrics = InMemoryMetricsRegistry.create();
+
+    ByteSource byteSource = Resources.asByteSource(Resources.getResource("test.csv"));
+
+    @Test
+    public void pipeline_recordsEveryStage() throws Exception {
+        CharSource source = Instrumented.charSource(byteSource.asCharSource(UTF_8), metrics.stage("read"));
+        Function<String, List<String>> split = Instrumented.function(new Function<String, List<String>>() {
+
+            @Override
+            public List<String> apply(final String input) {
+                return Splitter.on(',').splitToList(input);
+            }
+        }, metrics.stage("split"));
+        Function<List<String>, Integer> transform = Instrumented.function(new Function<List<String>, Integer>() {
+
+            @Override
+            public Integer apply(final List<String> row) {
+                return Integer.valueOf(row.get(2));
+            }
+        }, metrics.stage("transform"));
+
+        ImmutableList<String> lines = source.readLines();
+        List<Integer> values = Lists.newArrayList(Lists.transform(Lists.transform(lines, split), transform));
+        try {
+            transform.apply(ImmutableList.of("Sensor A", "2015-02-13 12:00", "n/a"));
+        } catch (NumberFormatException expected) {
+            // counted
+        }
+
+        assertThat(metrics.stage("read").getBytes()).isEqualTo(byteSource.asCharSource(UTF_8).read().length());
+        assertThat(metrics.stage("split").getItems()).isEqualTo(lines.size());
+        assertThat(metrics.stage("transform").getItems()).isEqualTo(values.size());
+        assertThat(metrics.stage("transform").getFailures()).isEqualTo(1);
+        assertThat(metrics.stage("transform").getItemsPerSecond()).isPositive();
+        assertThat(metrics.stages().keySet()).containsOnly("read", "split", "transform");
+    }
+
+    @Test
+    public void byteSource_countsBytesRead() throws Exception {
+        ByteSource source = Instrumented.byteSource(byteSource, metrics.stage("read"));
+
+        byte[] bytes = source.read();
+
+        assertThat(metrics.stage("read").getBytes()).isEqualTo(bytes.length);
+        assertThat(metrics.stage("read").getItems()).isGreaterThanOrEqualTo(2);
+        assertThat(source.size()).isEqualTo(bytes.length);
+    }
+
+    @Test
+    public void byteSourceAndCharSource_countSingleReadFailures() throws Exception {
+        ByteSource failing = new ByteSource() {
+
+            @Override
+            public InputStream openStream() {
+                return new InputStream() {
+
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("disk gone");
+                    }
+                };
+            }
+        };
+        InputStream in = Instrumented.byteSource(failing, metrics.stage("bytes")).openStream();
+        Reader reader = Instrumented.charSource(CharSource.wrap("x"), metrics.stage("chars")).openStream();
+        reader.close();
+
+        try {
+            in.read();
+            throw new AssertionError("read succeeded");
+        } catch (IOException expected) {
+            // counted
+        }
+        try {
+            reader.read();
+            throw new AssertionError("read succeeded");
+        } catch (IOException expected) {
+            // closed, counted as well
+        }
+
+        assertThat(metrics.stage("bytes").getFailures()).isEqualTo(1);
+        assertThat(metrics.stage("chars").getFailures()).isEqualTo(1);
+    }
+
+    @Test
+    public void lineProcessor_countsLinesAndFailedParses() throws Exception {
+        StageMetrics stage = metrics.stage("aggregate");
+        CharSource csv = CharSource.wrap("a,t,1\na,t,2\na,t,x\n");
+
+        try {
+            csv.readLines(Instrumented.lineProcessor(new SensorAggregator(), stage));
+        } catch (NumberFormatException expected) {
+            // the third line
+        }
+        Map<String, Double> result = CharSource.wrap("a,t,3").readLines(
+                Instrumented.lineProcessor(new SensorAggregator(), stage));
+
+        assertThat(result).containsEntry("a", 3.);
+        assertThat(stage.getItems()).isEqualTo(3);
+        assertThat(stage.getFailures()).isEqualTo(1);
+        assertThat(stage.getBytes()).isEqualTo(15);
+        assertThat(stage.getMeanNanos()).isPositive();
+
+        stage.reset();
+        assertThat(stage.getItems()).isZero();
+    }
+
+    @Test
+    public void stage_sameInstanceForTheSameName() throws Exception {
+        assertThat(metrics.stage("read")).isSameAs(metrics.stage("read"));
+    }
+}
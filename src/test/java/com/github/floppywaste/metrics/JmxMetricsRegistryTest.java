@@ -0,0 +1,56 @@
+package com.github.floppywaste.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+
+import org.junit.After;
+import org.junit.Test;
+
+
+public class JmxMetricsRegistryTest {
+
+    MBeanServer server = MBeanServerFactory.newMBeanServer();
+
+    InMemoryMetricsRegistry delegate = InMemoryMetricsRegistry.create();
+
+    JmxMetricsRegistry registry;
+
+    @After
+    public void closeRegistry() {
+        if (registry != null) {
+            registry.close();
+        }
+    }
+
+    @Test
+    public void stage_exportedAsMXBean() throws Exception {
+        delegate.stage("read").recordBytes(42);
+        registry = JmxMetricsRegistry.wrap(delegate, server, "sensors");
+
+        StageMetrics split = registry.stage("split, the second");
+        split.recordItem(1000);
+        split.recordItem(3000);
+
+        assertThat(server.getAttribute(registry.objectName("read"), "Bytes")).isEqualTo(42L);
+        assertThat(server.getAttribute(registry.objectName("split, the second"), "Items")).isEqualTo(2L);
+        assertThat(server.getAttribute(registry.objectName("split, the second"), "MeanNanos")).isEqualTo(2000.);
+        assertThat(registry.stages()).containsOnlyKeys("read", "split, the second");
+
+        server.invoke(registry.objectName("read"), "reset", new Object[0], new String[0]);
+        assertThat(delegate.stage("read").getBytes()).isZero();
+    }
+
+    @Test
+    public void close_unregisters() throws Exception {
+        registry = JmxMetricsRegistry.wrap(delegate, server, "sensors");
+        registry.stage("read");
+        assertThat(server.isRegistered(registry.objectName("read"))).isTrue();
+
+        registry.close();
+
+        assertThat(server.isRegistered(registry.objectName("read"))).isFalse();
+        assertThat(delegate.stages()).containsKey("read");
+    }
+}
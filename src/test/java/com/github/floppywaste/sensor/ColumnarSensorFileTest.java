@@ -0,0 +1,117 @@
+package com.github.floppywaste.sensor;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteSource;
+import com.google.common.io.CharSource;
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+
+
+public class ColumnarSensorFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void averages_fromBlockStatistics() throws Exception {
+        File columnar = folder.newFile("test.col");
+        ColumnarSensorFile.convert(Resources.asCharSource(Resources.getResource("test.csv"), UTF_8),
+                Files.asByteSink(columnar));
+
+        Map<String, Double> averageValuePerDevice = ColumnarSensorFile.open(MappedByteSource.of(columnar))
+                .averages();
+
+        assertThat(averageValuePerDevice).containsEntry("Sensor A", 150.);
+        assertThat(averageValuePerDevice).containsEntry("Sensor B", 406.25);
+        assertThat(averageValuePerDevice).hasSize(2);
+    }
+
+    @Test
+    public void statistics_matchTheCsvForAnyBlockSize() throws Exception {
+        String readings = ParallelSensorReaderTest.randomReadings(3000, 17);
+        CharSource csv = CharSource.wrap(readings);
+        Map<String, DeviceStatistics> expected = MappedSensorReader.statistics(ByteSource.wrap(readings
+                .getBytes(UTF_8)));
+
+        for (int blockRows : new int[] { 1, 7, 1000, 5000 }) {
+            ColumnarSensorFile file = convert(csv, blockRows);
+
+            assertThat(file.statistics()).isEqualTo(expected);
+            assertThat(file.statistics().keySet()).containsExactlyElementsOf(expected.keySet());
+            assertThat(file.rowCount()).isEqualTo(3000);
+            assertThat(file.blockCount()).isEqualTo((3000 + blockRows - 1) / blockRows);
+        }
+    }
+
+    @Test
+    public void scan_decodesEveryRowInOrder() throws Exception {
+        CharSource csv = CharSource.wrap("b,2015-02-13 12:00,-5\na,2015-02-13 11:59:30,2147483647\n\n"
+                + "b,1969-12-31 23:59,-2147483648\nä,2015-02-13 12:01,0\n");
+        final ColumnarSensorFile file = convert(csv, 3);
+        final List<String> rows = Lists.newArrayList();
+
+        file.scan(new ColumnarSensorFile.RowHandler() {
+
+            @Override
+            public void row(final int device, final long timestamp, final int value) {
+                rows.add(file.devices().get(device) + "," + timestamp + "," + value);
+            }
+        });
+
+        assertThat(rows).containsExactly("b," + millis("2015-02-13 12:00") + ",-5",
+                "a," + millis("2015-02-13 11:59:30") + ",2147483647", "b,-60000,-2147483648",
+                "ä," + millis("2015-02-13 12:01") + ",0");
+        assertThat(file.devices()).containsExactly("b", "a", "ä");
+    }
+
+    @Test
+    public void statistics_inTimeRange() throws Exception {
+        StringBuilder csv = new StringBuilder();
+        for (int minute = 0; minute < 600; minute++) {
+            csv.append("d").append(minute % 3).append(String.format(",2015-02-13 %02d:%02d,", minute / 60,
+                    minute % 60)).append(minute).append('\n');
+        }
+        ColumnarSensorFile file = convert(CharSource.wrap(csv), 50);
+
+        Map<String, DeviceStatistics> range = file.statistics(millis("2015-02-13 01:10"),
+                millis("2015-02-13 03:00"));
+
+        long count = 0;
+        long sum = 0;
+        for (DeviceStatistics statistics : range.values()) {
+            count += statistics.count();
+            sum += statistics.sum();
+        }
+        assertThat(count).isEqualTo(110);
+        assertThat(sum).isEqualTo((70 + 179) * 110 / 2);
+        assertThat(range.get("d1").min()).isEqualTo(70);
+        assertThat(file.statistics(0, millis("2015-02-13 00:00"))).isEmpty();
+    }
+
+    @Test(expected = IOException.class)
+    public void open_rejectsOtherFiles() throws Exception {
+        ColumnarSensorFile.open(Resources.asByteSource(Resources.getResource("test.csv")));
+    }
+
+    private ColumnarSensorFile convert(final CharSource csv, final int blockRows) throws Exception {
+        File columnar = folder.newFile();
+        assertThat(ColumnarSensorFile.convert(csv, Files.asByteSink(columnar), blockRows)).isPositive();
+        return ColumnarSensorFile.open(ByteSource.wrap(Files.toByteArray(columnar)));
+    }
+
+    private static long millis(final String timestamp) {
+        return Timestamps.parseEpochMillis(timestamp, 0, timestamp.length());
+    }
+}
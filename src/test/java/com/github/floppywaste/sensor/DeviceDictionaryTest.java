@@ -0,0 +1,123 @@
+package com.github.floppywaste.sensor;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+
+public class DeviceDictionaryTest {
+
+    DeviceDictionary dictionary = DeviceDictionary.create();
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @After
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void intern_denseIdsInOrderOfFirstAppearance() throws Exception {
+        assertThat(dictionary.intern("Sensor A,2015-02-13 12:00,1", 0, 8)).isEqualTo(0);
+        assertThat(dictionary.intern("Sensor B")).isEqualTo(1);
+        assertThat(dictionary.intern("x,Sensor A", 2, 10)).isEqualTo(0);
+
+        assertThat(dictionary.size()).isEqualTo(2);
+        assertThat(dictionary.name(0)).isEqualTo("Sensor A");
+        assertThat(dictionary.name(1)).isEqualTo("Sensor B");
+    }
+
+    @Test
+    public void intern_bytesAndCharsResolveToTheSameId() throws Exception {
+        ByteBuffer bytes = ByteBuffer.wrap("Fühler Ä,2015-02-13 12:00,1\n".getBytes(UTF_8));
+
+        int fromBytes = dictionary.intern(bytes, 0, "Fühler Ä".getBytes(UTF_8).length);
+
+        assertThat(dictionary.name(fromBytes)).isEqualTo("Fühler Ä");
+        assertThat(dictionary.intern("Fühler Ä")).isEqualTo(fromBytes);
+        assertThat(dictionary.intern(ByteBuffer.wrap("Sensor B".getBytes(UTF_8)), 0, 8))
+                .isEqualTo(dictionary.intern("Sensor B"));
+        assertThat(dictionary.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void find_withoutAdding() throws Exception {
+        dictionary.intern("Sensor A");
+
+        assertThat(dictionary.find("Sensor A", 0, 8)).isEqualTo(0);
+        assertThat(dictionary.find("Sensor B", 0, 8)).isEqualTo(-1);
+        assertThat(dictionary.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void intern_growsBeyondTheInitialCapacity() throws Exception {
+        for (int i = 0; i < 10000; i++) {
+            assertThat(dictionary.intern("device-" + i)).isEqualTo(i);
+        }
+        for (int i = 0; i < 10000; i++) {
+            byte[] name = ("device-" + i).getBytes(UTF_8);
+            assertThat(dictionary.intern(ByteBuffer.wrap(name), 0, name.length)).isEqualTo(i);
+        }
+        assertThat(dictionary.size()).isEqualTo(10000);
+    }
+
+    @Test
+    public void intern_concurrentlyAssignsEveryNameOnce() throws Exception {
+        List<Future<int[]>> results = Lists.newArrayList();
+        for (int thread = 0; thread < 8; thread++) {
+            final int offset = thread * 100;
+            results.add(executor.submit(new Callable<int[]>() {
+
+                @Override
+                public int[] call() {
+                    int[] ids = new int[2000];
+                    for (int i = 0; i < ids.length; i++) {
+                        int device = (i + offset) % ids.length;
+                        ids[device] = dictionary.intern("device-" + device);
+                        // while the other threads are still adding names
+                        assertThat(dictionary.name(ids[device])).isEqualTo("device-" + device);
+                    }
+                    return ids;
+                }
+            }));
+        }
+
+        int[] first = results.get(0).get();
+        for (Future<int[]> result : results) {
+            assertThat(result.get()).isEqualTo(first);
+        }
+        assertThat(dictionary.size()).isEqualTo(2000);
+        for (int device = 0; device < first.length; device++) {
+            assertThat(dictionary.name(first[device])).isEqualTo("device-" + device);
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void name_unknownId() throws Exception {
+        dictionary.name(0);
+    }
+
+    @Test
+    public void sensorAggregator_sharesTheDictionary() throws Exception {
+        SensorAggregator aggregator = new SensorAggregator(dictionary);
+
+        aggregator.processLine("Sensor B,2015-02-13 12:00,1");
+        aggregator.processLine("Sensor A,2015-02-13 12:00,2");
+        aggregator.processLine("Sensor B,2015-02-13 12:00,3");
+
+        assertThat(aggregator.getStatistics().keySet()).containsExactly("Sensor B", "Sensor A");
+        assertThat(aggregator.getResult()).containsEntry("Sensor B", 2.);
+        assertThat(dictionary.find("Sensor A", 0, 8)).isEqualTo(1);
+    }
+}
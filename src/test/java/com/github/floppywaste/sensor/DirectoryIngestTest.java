@@ -0,0 +1,148 @@
+package com.github.floppywaste.sensor;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.io.CharSource;
+import com.google.common.io.Files;
+
+
+public class DirectoryIngestTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    ExecutorService executor = DirectoryIngest.newExecutor(4);
+
+    @After
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void ingest_mergesAllFilesOfADirectory() throws Exception {
+        List<CharSource> contents = Lists.newArrayList();
+        for (int i = 0; i < 50; i++) {
+            String readings = ParallelSensorReaderTest.randomReadings(100 + i, 7 + i % 5);
+            Files.write(readings, folder.newFile("sensors-" + i + ".csv"), UTF_8);
+            contents.add(CharSource.wrap(readings));
+        }
+        SensorAggregator concatenated = new SensorAggregator();
+        CharSource.concat(contents).readLines(concatenated);
+
+        DirectoryIngest.IngestResult result = DirectoryIngest.using(executor).maxOpenFiles(3)
+                .ingest(folder.getRoot());
+
+        assertThat(result.statistics()).isEqualTo(concatenated.getStatistics());
+        assertThat(result.filesRead()).isEqualTo(50);
+        assertThat(result.failures()).isEmpty();
+    }
+
+    @Test
+    public void ingest_reportsFailedFilesAndGoesOn() throws Exception {
+        Files.write("a,2015-02-13 12:00,1\n", folder.newFile("1.csv"), UTF_8);
+        File broken = folder.newFile("2.csv");
+        Files.write("a,2015-02-13 12:00,one\n", broken, UTF_8);
+        Files.write("a,2015-02-13 12:00,3\n", folder.newFile("3.csv"), UTF_8);
+        File missing = new File(folder.getRoot(), "4.csv");
+
+        DirectoryIngest.IngestResult result = DirectoryIngest.using(executor).maxOpenFiles(1).ingest(
+                ImmutableList.of(new File(folder.getRoot(), "1.csv"), broken, missing,
+                        new File(folder.getRoot(), "3.csv")));
+
+        assertThat(result.averages()).containsEntry("a", 2.);
+        assertThat(result.filesRead()).isEqualTo(2);
+        assertThat(result.failures().keySet()).containsOnly(broken, missing);
+        assertThat(result.failures().get(broken)).isInstanceOf(NumberFormatException.class);
+        assertThat(result.failures().get(missing)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void ingest_readsAFileListedTwiceOnce() throws Exception {
+        File broken = folder.newFile("1.csv");
+        Files.write("a,2015-02-13 12:00,one\n", broken, UTF_8);
+        File good = folder.newFile("2.csv");
+        Files.write("a,2015-02-13 12:00,3\nb,2015-02-13 12:00,4\n", good, UTF_8);
+        Files.write("b,2015-02-13 12:00,6\n", folder.newFile("3.csv"), UTF_8);
+
+        DirectoryIngest.IngestResult result = DirectoryIngest.using(executor).ingest(
+                ImmutableList.of(broken, good, new File(folder.getRoot(), "3.csv"), good, broken));
+
+        assertThat(result.averages()).containsEntry("a", 3.).containsEntry("b", 5.);
+        assertThat(result.statistics().get("a").count()).isEqualTo(1);
+        assertThat(result.filesRead()).isEqualTo(2);
+        assertThat(result.failures().keySet()).containsOnly(broken);
+    }
+
+    @Test
+    public void ingest_neverExceedsMaxOpenFiles() throws Exception {
+        for (int i = 0; i < 30; i++) {
+            Files.write(ParallelSensorReaderTest.randomReadings(1000, 3), folder.newFile(i + ".csv"), UTF_8);
+        }
+        final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<Runnable>();
+        final AtomicInteger submitted = new AtomicInteger();
+        Executor manual = new Executor() {
+
+            @Override
+            public void execute(final Runnable command) {
+                submitted.incrementAndGet();
+                tasks.add(command);
+            }
+        };
+        final DirectoryIngest ingest = DirectoryIngest.using(manual).maxOpenFiles(2);
+        Future<DirectoryIngest.IngestResult> result = executor.submit(new Callable<DirectoryIngest.IngestResult>() {
+
+            @Override
+            public DirectoryIngest.IngestResult call() throws Exception {
+                return ingest.ingest(folder.getRoot());
+            }
+        });
+
+        for (int completed = 0; completed < 30; completed++) {
+            Runnable task = tasks.poll(10, TimeUnit.SECONDS);
+            assertThat(submitted.get() - completed).isBetween(1, 2);
+            task.run();
+        }
+
+        assertThat(result.get(10, TimeUnit.SECONDS).filesRead()).isEqualTo(30);
+        assertThat(submitted.get()).isEqualTo(30);
+    }
+
+    @Test
+    public void filter_selectsFilesByName() throws Exception {
+        Files.write("a,2015-02-13 12:00,1\n", folder.newFile("1.csv"), UTF_8);
+        Files.write("not a sensor file", folder.newFile("README"), UTF_8);
+        folder.newFolder("archive");
+
+        DirectoryIngest.IngestResult result = DirectoryIngest.using(executor).filter(new Predicate<File>() {
+
+            @Override
+            public boolean apply(final File input) {
+                return input.getName().endsWith(".csv");
+            }
+        }).ingest(folder.getRoot());
+
+        assertThat(result.filesRead()).isEqualTo(1);
+        assertThat(result.failures()).isEmpty();
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.floppywaste.sensor;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+
+
+public class MappedSensorReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    ByteSource byteSource = Resources.asByteSource(Resources.getResource("test.csv"));
+
+    @Test
+    public void averages_fromMappedFile() throws Exception {
+        File file = new File(Resources.getResource("test.csv").toURI());
+
+        Map<String, Double> averageValuePerDevice = MappedSensorReader.averages(MappedByteSource.of(file));
+
+        assertThat(averageValuePerDevice).containsEntry("Sensor A", 150.);
+        assertThat(averageValuePerDevice).containsEntry("Sensor B", 406.25);
+        assertThat(averageValuePerDevice).hasSize(2);
+    }
+
+    @Test
+    public void averages_fromAnyByteSource() throws Exception {
+        Map<String, Double> averageValuePerDevice = MappedSensorReader.averages(byteSource);
+
+        assertThat(averageValuePerDevice).containsEntry("Sensor A", 150.);
+        assertThat(averageValuePerDevice).containsEntry("Sensor B", 406.25);
+    }
+
+    @Test
+    public void read_linesSpanningRegionsAndBuffers() throws Exception {
+        File file = folder.newFile("sensors.csv");
+        Files.write("a,t,1\r\nbb,t,-2\n\nä,t,30\na,t,5", file, UTF_8);
+        Map<String, DeviceStatistics> expected = statisticsOf(file);
+
+        // the longest line has 8 bytes; streaming grows its buffer while regions must hold a whole line
+        for (int size = 1; size < 40; size++) {
+            assertThat(MappedSensorReader.read(Files.asByteSource(file), size, size).toMap()).isEqualTo(expected);
+            if (size >= 8) {
+                assertThat(MappedSensorReader.read(MappedByteSource.of(file), size, size).toMap()).isEqualTo(
+                        expected);
+            }
+        }
+        assertThat(expected.get("ä").sum()).isEqualTo(30);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void read_rejectsLinesLongerThanTheRegion() throws Exception {
+        File file = folder.newFile("sensors.csv");
+        Files.write("device,timestamp,1\ndevice,timestamp,2\n", file, UTF_8);
+
+        MappedSensorReader.read(MappedByteSource.of(file), 10, 10);
+    }
+
+    private static Map<String, DeviceStatistics> statisticsOf(final File file) throws Exception {
+        SensorAggregator aggregator = new SensorAggregator();
+        Files.asCharSource(file, UTF_8).readLines(aggregator);
+        return aggregator.getStatistics();
+    }
+}
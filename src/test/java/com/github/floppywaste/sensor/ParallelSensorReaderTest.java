@@ -0,0 +1,76 @@
+package com.github.floppywaste.sensor;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+
+
+public class ParallelSensorReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void averages_sameResultAsViewPipeline() throws Exception {
+        Map<String, Double> averageValuePerDevice =
+                ParallelSensorReader.averages(Resources.asByteSource(Resources.getResource("test.csv")));
+
+        assertThat(averageValuePerDevice).containsEntry("Sensor A", 150.);
+        assertThat(averageValuePerDevice).containsEntry("Sensor B", 406.25);
+        assertThat(averageValuePerDevice).hasSize(2);
+    }
+
+    @Test
+    public void statistics_identicalToSequentialForAnyChunkSizeAndParallelism() throws Exception {
+        File file = folder.newFile("sensors.csv");
+        Files.write(randomReadings(2000, 37), file, UTF_8);
+        Map<String, DeviceStatistics> sequential = MappedSensorReader.statistics(Files.asByteSource(file));
+
+        for (int parallelism : new int[] { 1, 3, 8 }) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            for (int chunkSize : new int[] { 1, 7, 100, 4096, 1 << 20 }) {
+                for (ByteSource source : ImmutableList.of(MappedByteSource.of(file), Files.asByteSource(file))) {
+                    Map<String, DeviceStatistics> parallel = ParallelSensorReader.statistics(source, pool, chunkSize);
+
+                    assertThat(parallel).isEqualTo(sequential);
+                    assertThat(parallel.keySet()).containsExactlyElementsOf(sequential.keySet());
+                }
+            }
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void boundaries_startOfLines() throws Exception {
+        ByteSource source = ByteSource.wrap("a,t,1\nbb,t,22\nc,t,3".getBytes(UTF_8));
+
+        assertThat(ParallelSensorReader.boundaries(source, 1)).containsExactly(0, 6, 14, 19);
+        assertThat(ParallelSensorReader.boundaries(source, 6)).containsExactly(0, 6, 14, 19);
+        assertThat(ParallelSensorReader.boundaries(source, 7)).containsExactly(0, 14, 19);
+        assertThat(ParallelSensorReader.boundaries(source, 100)).containsExactly(0, 19);
+        assertThat(ParallelSensorReader.boundaries(ByteSource.empty(), 100)).containsExactly(0);
+    }
+
+    static String randomReadings(final int lines, final int devices) {
+        Random random = new Random(42);
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            csv.append("Sensor ").append(random.nextInt(devices)).append(",2015-02-13 12:00,")
+                    .append(random.nextInt(2000) - 1000).append('\n');
+        }
+        return csv.toString();
+    }
+}
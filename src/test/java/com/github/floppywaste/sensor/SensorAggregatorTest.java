@@ -0,0 +1,54 @@
+package com.github.floppywaste.sensor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.CharSource;
+import com.google.common.io.Resources;
+
+
+public class SensorAggregatorTest {
+
+    CharSource charSource = Resources.asCharSource(Resources.getResource("test.csv"), Charsets.UTF_8);
+
+    @Test
+    public void averages_sameResultAsViewPipeline() throws Exception {
+        Map<String, Double> averageValuePerDevice = SensorAggregator.averages(charSource);
+
+        assertThat(averageValuePerDevice).containsEntry("Sensor A", 150.);
+        assertThat(averageValuePerDevice).containsEntry("Sensor B", 406.25);
+        assertThat(averageValuePerDevice).hasSize(2);
+    }
+
+    @Test
+    public void getStatistics_keepsRunningCountSumMinMax() throws Exception {
+        SensorAggregator aggregator = new SensorAggregator();
+        charSource.readLines(aggregator);
+
+        DeviceStatistics sensorB = aggregator.getStatistics().get("Sensor B");
+        assertThat(sensorB.count()).isEqualTo(4);
+        assertThat(sensorB.sum()).isEqualTo(1625);
+        assertThat(sensorB.min()).isEqualTo(321);
+        assertThat(sensorB.max()).isEqualTo(538);
+    }
+
+    @Test
+    public void processLine_interleavedDevices() throws Exception {
+        SensorAggregator aggregator = new SensorAggregator();
+        aggregator.processLine("a,t,1");
+        aggregator.processLine("b,t,-10");
+        aggregator.processLine("a,t,3");
+        aggregator.processLine("");
+
+        assertThat(aggregator.getResult()).containsEntry("a", 2.).containsEntry("b", -10.).hasSize(2);
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void processLine_rejectsMalformedValues() throws Exception {
+        new SensorAggregator().processLine("a,t,1x");
+    }
+}
@@ -0,0 +1,41 @@
+package com.github.floppywaste.sensor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import com.github.floppywaste.collect.IntMultimap;
+import com.google.common.base.Charsets;
+import com.google.common.io.CharSource;
+import com.google.common.io.Resources;
+
+
+public class SensorColumnsTest {
+
+    CharSource charSource = Resources.asCharSource(Resources.getResource("test.csv"), Charsets.UTF_8);
+
+    @Test
+    public void valuesPerDevice_keepsAllReadingsForPercentiles() throws Exception {
+        IntMultimap<String> valuesPerDevice = SensorColumns.valuesPerDevice(charSource);
+
+        assertThat(valuesPerDevice.mean("Sensor A")).isEqualTo(150.);
+        assertThat(valuesPerDevice.mean("Sensor B")).isEqualTo(406.25);
+        assertThat(valuesPerDevice.percentile("Sensor B", 50)).isEqualTo(383.);
+        assertThat(valuesPerDevice.size()).isEqualTo(8);
+    }
+
+    @Test
+    public void processLine_keysColumnsByDeviceIdOfASharedDictionary() throws Exception {
+        DeviceDictionary dictionary = DeviceDictionary.create();
+        dictionary.intern("Sensor B");
+        SensorColumns columns = new SensorColumns(dictionary);
+
+        columns.processLine("Sensor A,2015-02-13 12:00,1");
+        columns.processLine("Sensor B,2015-02-13 12:00,2");
+        columns.processLine("Sensor A,2015-02-13 12:15,3");
+
+        assertThat(columns.getResult().keySet()).containsExactly("Sensor A", "Sensor B");
+        assertThat(columns.getResult().get("Sensor A").toArray()).containsExactly(1, 3);
+        assertThat(dictionary.size()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.floppywaste.sensor;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.data.Offset.offset;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.github.floppywaste.math.HyperLogLog;
+import com.github.floppywaste.math.QuantileSketch;
+import com.google.common.collect.Maps;
+import com.google.common.io.CharSource;
+import com.google.common.io.Resources;
+
+
+public class SensorSketchesTest {
+
+    CharSource charSource = Resources.asCharSource(Resources.getResource("test.csv"), UTF_8);
+
+    @Test
+    public void distinctDevices_ofTheTestFile() throws Exception {
+        HyperLogLog devices = charSource.readLines(SensorSketches.distinctDevices());
+
+        HyperLogLog expected = HyperLogLog.create();
+        expected.add("Sensor A");
+        expected.add("Sensor B");
+        assertThat(devices).isEqualTo(expected);
+        assertThat(devices.cardinality()).isEqualTo(2);
+    }
+
+    @Test
+    public void distinctDevices_mergeAcrossFiles() throws Exception {
+        CharSource first = CharSource.wrap(ParallelSensorReaderTest.randomReadings(20000, 3000));
+        CharSource second = CharSource.wrap(ParallelSensorReaderTest.randomReadings(20000, 6000));
+
+        HyperLogLog devices = first.readLines(SensorSketches.distinctDevices(14));
+        devices.merge(second.readLines(SensorSketches.distinctDevices(14)));
+
+        int distinct = CharSource.concat(first, second).readLines(new SensorAggregator()).size();
+        assertThat((double) devices.cardinality()).isCloseTo(distinct, offset(0.03 * distinct));
+    }
+
+    @Test
+    public void quantilesPerDevice_ofTheTestFile() throws Exception {
+        Map<String, QuantileSketch> quantiles = charSource.readLines(SensorSketches.quantilesPerDevice());
+
+        assertThat(quantiles.keySet()).containsExactly("Sensor A", "Sensor B");
+        assertThat(quantiles.get("Sensor A").count()).isEqualTo(4);
+        assertThat(quantiles.get("Sensor B").quantile(1)).isEqualTo(quantiles.get("Sensor B").max());
+    }
+
+    @Test
+    public void mergeInto_combinesDevicesOfSeveralFiles() throws Exception {
+        Map<String, QuantileSketch> merged = Maps.newLinkedHashMap();
+
+        SensorSketches.mergeInto(merged, charSource.readLines(SensorSketches.quantilesPerDevice()));
+        SensorSketches.mergeInto(merged, CharSource.wrap("Sensor C,2015-02-13 12:00,7\nSensor A,2015-02-13 12:00,9")
+                .readLines(SensorSketches.quantilesPerDevice()));
+
+        assertThat(merged.keySet()).containsExactly("Sensor A", "Sensor B", "Sensor C");
+        assertThat(merged.get("Sensor A").count()).isEqualTo(5);
+    }
+}
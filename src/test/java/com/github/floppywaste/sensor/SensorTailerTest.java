@@ -0,0 +1,157 @@
+package com.github.floppywaste.sensor;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.io.Files;
+
+
+public class SensorTailerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    File file;
+    SensorTailer tailer;
+
+    @After
+    public void closeTailer() throws Exception {
+        if (tailer != null) {
+            tailer.close();
+        }
+    }
+
+    @Test
+    public void refresh_parsesOnlyAppendedBytes() throws Exception {
+        file = folder.newFile("sensors.csv");
+        tailer = SensorTailer.of(file);
+        append("a,t,1\nb,t,10\n");
+
+        assertThat(tailer.refresh()).isEqualTo(13);
+        append("a,t,3\n");
+        assertThat(tailer.refresh()).isEqualTo(6);
+        assertThat(tailer.refresh()).isEqualTo(0);
+
+        assertThat(tailer.averages()).containsEntry("a", 2.).containsEntry("b", 10.).hasSize(2);
+        assertThat(tailer.offset()).isEqualTo(19);
+    }
+
+    @Test
+    public void refresh_waitsForTheRestOfAPartialLine() throws Exception {
+        file = folder.newFile("sensors.csv");
+        tailer = SensorTailer.of(file);
+        append("a,t,1\na,t,2");
+
+        tailer.refresh();
+        assertThat(tailer.statistics().get("a").count()).isEqualTo(1);
+        assertThat(tailer.offset()).isEqualTo(6);
+
+        append("0\r\n");
+        tailer.refresh();
+        assertThat(tailer.statistics().get("a").sum()).isEqualTo(21);
+    }
+
+    @Test
+    public void refresh_growsTheBufferForLongLines() throws Exception {
+        file = folder.newFile("sensors.csv");
+        tailer = new SensorTailer(file, 4);
+        append("device,2015-01-01 00:00,7\ndevice,2015-01-01 00:01,9\n");
+
+        tailer.refresh();
+
+        assertThat(tailer.averages()).containsEntry("device", 8.);
+    }
+
+    @Test
+    public void refresh_startsOverAfterTruncation() throws Exception {
+        file = folder.newFile("sensors.csv");
+        tailer = SensorTailer.of(file);
+        append("a,t,1\na,t,2\n");
+        tailer.refresh();
+
+        Files.write("a,t,3\n", file, UTF_8);
+        tailer.refresh();
+
+        assertThat(tailer.statistics().get("a").count()).isEqualTo(3);
+        assertThat(tailer.offset()).isEqualTo(6);
+    }
+
+    @Test
+    public void refresh_startsOverWhenTheFileWasRewrittenPastTheOffset() throws Exception {
+        file = folder.newFile("sensors.csv");
+        tailer = SensorTailer.of(file);
+        append("a,t,1\n");
+        tailer.refresh();
+
+        Files.write("b,t,2\nb,t,4\n", file, UTF_8);
+        tailer.refresh();
+
+        assertThat(tailer.averages()).containsEntry("a", 1.).containsEntry("b", 3.);
+    }
+
+    @Test
+    public void refresh_finishesARotatedFileBeforeFollowingTheNewOne() throws Exception {
+        file = folder.newFile("sensors.csv");
+        tailer = SensorTailer.of(file);
+        append("a,t,1\n");
+        tailer.refresh();
+
+        append("a,t,2\n");
+        assertThat(file.renameTo(new File(folder.getRoot(), "sensors.csv.1"))).isTrue();
+        assertThat(tailer.refresh()).isEqualTo(6);
+
+        append("a,t,3\n");
+        assertThat(tailer.refresh()).isEqualTo(6);
+        assertThat(tailer.statistics().get("a").sum()).isEqualTo(6);
+    }
+
+    @Test
+    public void refresh_waitsForAMissingFile() throws Exception {
+        file = new File(folder.getRoot(), "sensors.csv");
+        tailer = SensorTailer.of(file);
+
+        assertThat(tailer.refresh()).isEqualTo(0);
+        append("a,t,5\n");
+        tailer.refresh();
+
+        assertThat(tailer.averages()).containsEntry("a", 5.);
+    }
+
+    @Test
+    public void reset_countsOnlyNewRows() throws Exception {
+        file = folder.newFile("sensors.csv");
+        tailer = SensorTailer.of(file);
+        append("a,t,1\n");
+        tailer.refresh();
+
+        tailer.reset();
+        append("a,t,9\n");
+        tailer.refresh();
+
+        assertThat(tailer.averages()).containsEntry("a", 9.).hasSize(1);
+    }
+
+    @Test
+    public void statistics_matchAReadOfTheWholeFile() throws Exception {
+        file = folder.newFile("sensors.csv");
+        tailer = new SensorTailer(file, 64);
+        String readings = ParallelSensorReaderTest.randomReadings(2000, 7);
+        for (int start = 0; start < readings.length(); start += 997) {
+            append(readings.substring(start, Math.min(readings.length(), start + 997)));
+            tailer.refresh();
+        }
+
+        assertThat(tailer.statistics()).isEqualTo(MappedSensorReader.statistics(Files.asByteSource(file)));
+    }
+
+    private void append(final String lines) throws Exception {
+        Files.append(lines, file, UTF_8);
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.floppywaste.sensor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.floppywaste.sensor.ColumnarSensorFile.RowHandler;
+import com.google.common.collect.Lists;
+import com.google.common.io.CharSource;
+
+
+public class TimeRangeIndexTest {
+
+    TimeRangeIndex index = TimeRangeIndex.create();
+
+    @Test
+    public void statistics_matchesAScanOfAllReadings() throws Exception {
+        Random random = new Random(7);
+        long[] timestamps = new long[20000];
+        int[] values = new int[timestamps.length];
+        long timestamp = 0;
+        for (int i = 0; i < timestamps.length; i++) {
+            // mostly in order, with a few duplicates and late readings
+            timestamp += random.nextInt(10);
+            timestamps[i] = random.nextInt(50) == 0 ? timestamp - random.nextInt(5000) : timestamp;
+            values[i] = random.nextInt(2001) - 1000;
+            index.add("Sensor A", timestamps[i], values[i]);
+        }
+
+        for (int query = 0; query < 500; query++) {
+            long from = random.nextInt((int) timestamp + 100) - 50;
+            long to = from + random.nextInt(query % 2 == 0 ? 100 : 50000);
+            DeviceStatistics expected = new DeviceStatistics();
+            for (int i = 0; i < timestamps.length; i++) {
+                if (timestamps[i] >= from && timestamps[i] < to) {
+                    expected.add(values[i]);
+                }
+            }
+
+            assertThat(index.statistics("Sensor A", from, to)).isEqualTo(expected);
+        }
+        assertThat(index.size()).isEqualTo(timestamps.length);
+    }
+
+    @Test
+    public void appender_indexesEveryDevice() throws Exception {
+        CharSource csv = CharSource.wrap("Sensor A,2015-02-13 12:00,1\n"
+                + "Sensor B,2015-02-13 12:10,10\n"
+                + "Sensor A,2015-02-13 12:20,2\n"
+                + "Sensor A,2015-02-13 12:40,4\n"
+                + "Sensor A,2015-02-13 12:30,3\n"
+                + "Sensor A,2015-02-13 12:50,5\n");
+        long from = Timestamps.parseEpochMillis("2015-02-13 12:15", 0, 16);
+        long to = Timestamps.parseEpochMillis("2015-02-13 12:45", 0, 16);
+
+        csv.readLines(index.appender());
+
+        assertThat(index.statistics("Sensor A", from, to)).isEqualTo(DeviceStatistics.of(3, 9, 2, 4));
+        assertThat(index.statistics("Sensor B", from, to).count()).isZero();
+        assertThat(index.statistics("Sensor C", from, to).count()).isZero();
+        final List<Integer> scanned = Lists.newArrayList();
+        index.scan(index.dictionary().find("Sensor A", 0, 8), from, to, new RowHandler() {
+
+            @Override
+            public void row(final int device, final long timestamp, final int value) {
+                scanned.add(value);
+            }
+        });
+        assertThat(scanned).containsExactly(2, 3, 4);
+    }
+
+    @Test
+    public void statistics_emptyRange() throws Exception {
+        index.add("Sensor A", 100, 1);
+
+        assertThat(index.statistics("Sensor A", 100, 100).count()).isZero();
+        assertThat(index.statistics("Sensor A", 101, 200).count()).isZero();
+        assertThat(index.statistics("Sensor A", 0, 101).mean()).isEqualTo(1.);
+    }
+
+    @Test
+    public void statistics_whileReadingsAreAdded() throws Exception {
+        final int device = index.dictionary().intern("Sensor A");
+        Thread writer = new Thread() {
+
+            @Override
+            public void run() {
+                for (int i = 0; i < 100000; i++) {
+                    index.add(device, i, 1);
+                }
+            }
+        };
+        writer.start();
+        long count = 0;
+        while (count < 100000) {
+            DeviceStatistics statistics = index.statistics(device, 0, Long.MAX_VALUE);
+            assertThat(statistics.sum()).isEqualTo(statistics.count());
+            count = statistics.count();
+        }
+        writer.join();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void statistics_fromAfterTo() throws Exception {
+        index.statistics("Sensor A", 2, 1);
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.floppywaste.sensor;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Table;
+import com.google.common.io.CharSource;
+import com.google.common.io.Resources;
+
+
+public class WindowedAggregatorTest {
+
+    @Test
+    public void parseEpochMillis_agreesWithJavaTime() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            LocalDateTime time = LocalDateTime.of(1900 + random.nextInt(300), 1, 1, 0, 0)
+                    .plusMinutes(random.nextInt(366 * 24 * 60)).withSecond(random.nextInt(60));
+            String text = "x," + time.toString().replace('T', ' ') + ",1";
+
+            assertThat(Timestamps.parseEpochMillis(text, 2, text.length() - 2)).isEqualTo(
+                    time.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+        assertThat(Timestamps.parseEpochMillis("1970-01-01 00:01", 0, 16)).isEqualTo(60000);
+        assertThat(Timestamps.parseEpochMillis("1969-12-31T23:59", 0, 16)).isEqualTo(-60000);
+    }
+
+    @Test
+    public void parseEpochMillis_rejectsInvalidDates() throws Exception {
+        for (String invalid : new String[] { "2015-02-29 12:00", "2015-13-01 12:00", "2015-02-13 24:00",
+                "2015-02-13 12:60", "2015-02-13 12", "2015-02-13 1a:00", "2015/02/13 12:00" }) {
+            try {
+                Timestamps.parseEpochMillis(invalid, 0, invalid.length());
+                throw new AssertionError(invalid);
+            } catch (IllegalArgumentException expected) {
+                assertThat(expected).hasMessageContaining(invalid);
+            }
+        }
+        assertThat(Timestamps.parseEpochMillis("2016-02-29 12:00", 0, 16)).isPositive();
+    }
+
+    @Test
+    public void tumbling_averagesPerDeviceAndHour() throws Exception {
+        WindowedAggregator aggregator = TimeWindows.tumbling(1, HOURS).aggregator();
+
+        Table<String, Long, Double> hourly = Resources.asCharSource(Resources.getResource("test.csv"), UTF_8)
+                .readLines(aggregator);
+
+        assertThat(hourly.row("Sensor A")).containsEntry(millis("2015-02-13 12:00"), 150.).hasSize(1);
+        assertThat(hourly.row("Sensor B")).hasSize(1);
+        assertThat(hourly.get("Sensor B", millis("2015-02-13 12:00"))).isEqualTo(406.25);
+    }
+
+    @Test
+    public void tumbling_closesWindowsAsTimeAdvances() throws Exception {
+        WindowedAggregator aggregator = TimeWindows.tumbling(15, MINUTES).aggregator();
+        read(aggregator, "a,2015-02-13 12:00,1", "a,2015-02-13 12:14,3", "a,2015-02-13 12:15,10",
+                "a,2015-02-13 13:01,20");
+
+        assertThat(aggregator.closedWindows().row("a").keySet()).containsExactly(millis("2015-02-13 12:00"),
+                millis("2015-02-13 12:15"));
+        assertThat(aggregator.getResult().row("a")).containsEntry(millis("2015-02-13 12:00"), 2.)
+                .containsEntry(millis("2015-02-13 12:15"), 10.).containsEntry(millis("2015-02-13 13:00"), 20.)
+                .hasSize(3);
+    }
+
+    @Test
+    public void sliding_combinesOverlappingWindows() throws Exception {
+        WindowedAggregator aggregator = TimeWindows.sliding(1, HOURS, 30, MINUTES).aggregator();
+        read(aggregator, "a,2015-02-13 12:10,1", "a,2015-02-13 12:40,3", "a,2015-02-13 13:10,5");
+
+        Map<Long, DeviceStatistics> windows = aggregator.getStatistics().row("a");
+
+        assertThat(windows.keySet()).containsExactly(millis("2015-02-13 11:30"), millis("2015-02-13 12:00"),
+                millis("2015-02-13 12:30"), millis("2015-02-13 13:00"));
+        assertThat(windows.get(millis("2015-02-13 11:30")).sum()).isEqualTo(1);
+        assertThat(windows.get(millis("2015-02-13 12:00")).sum()).isEqualTo(4);
+        assertThat(windows.get(millis("2015-02-13 12:30")).sum()).isEqualTo(8);
+        assertThat(windows.get(millis("2015-02-13 13:00")).sum()).isEqualTo(5);
+    }
+
+    @Test
+    public void lateness_acceptsRowsWithinTheBoundAndDropsOlderOnes() throws Exception {
+        WindowedAggregator aggregator = TimeWindows.tumbling(15, MINUTES).allowedLateness(10, MINUTES)
+                .aggregator();
+        read(aggregator, "a,2015-02-13 12:10,1", "a,2015-02-13 12:20,2", "a,2015-02-13 12:14,3",
+                "b,2015-02-13 11:00,7", "a,2015-02-13 12:40,4", "a,2015-02-13 12:14,100");
+
+        assertThat(aggregator.droppedRows()).isEqualTo(1);
+        assertThat(aggregator.getResult().row("a")).containsEntry(millis("2015-02-13 12:00"), 2.)
+                .containsEntry(millis("2015-02-13 12:15"), 2.).containsEntry(millis("2015-02-13 12:30"), 4.);
+        assertThat(aggregator.getResult().get("b", millis("2015-02-13 11:00"))).isEqualTo(7.);
+    }
+
+    @Test
+    public void windows_matchRecomputingFromAllRows() throws Exception {
+        Random random = new Random(7);
+        long start = millis("2015-02-13 00:00");
+        WindowedAggregator aggregator = TimeWindows.sliding(1, HOURS, 15, MINUTES).allowedLateness(20, MINUTES)
+                .aggregator();
+        Map<Long, DeviceStatistics> expected = Maps.newTreeMap();
+        long newest = Long.MIN_VALUE;
+        int dropped = 0;
+        for (int i = 0; i < 5000; i++) {
+            long minute = i / 2 + random.nextInt(25) - (i % 50 == 0 ? 3000 : 0);
+            long timestamp = start + MINUTES.toMillis(minute);
+            int value = random.nextInt(1000);
+            aggregator.processLine("d," + LocalDateTime.ofEpochSecond(timestamp / 1000, 0, ZoneOffset.UTC)
+                    .toString().replace('T', ' ') + "," + value);
+            if (newest != Long.MIN_VALUE && timestamp < newest - MINUTES.toMillis(20)) {
+                dropped++;
+                continue;
+            }
+            newest = Math.max(newest, timestamp);
+            long quarter = Math.floorDiv(timestamp, MINUTES.toMillis(15)) * MINUTES.toMillis(15);
+            for (long windowStart = quarter - MINUTES.toMillis(45); windowStart <= quarter; windowStart +=
+                    MINUTES.toMillis(15)) {
+                if (!expected.containsKey(windowStart)) {
+                    expected.put(windowStart, new DeviceStatistics());
+                }
+                expected.get(windowStart).add(value);
+            }
+        }
+
+        assertThat(aggregator.getStatistics().row("d")).isEqualTo(expected);
+        assertThat(aggregator.droppedRows()).isEqualTo(dropped).isGreaterThanOrEqualTo(100);
+    }
+
+    private static void read(final WindowedAggregator aggregator, final String... lines) throws Exception {
+        CharSource.wrap(Joiner.on('\n').join(lines)).readLines(aggregator);
+    }
+
+    private static long millis(final String timestamp) {
+        return Timestamps.parseEpochMillis(timestamp, 0, timestamp.length());
+    }
+}